@@ -0,0 +1,81 @@
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.nio.file.*;
+import java.util.*;
+
+// Measurement loop shared by CPUSchedulingBenchmark and MemoryPlacementBenchmark.
+//
+// Works like a JMH run: every configuration runs in a fresh JVM (like a JMH
+// fork), so the JIT profile of shared call sites does not depend on what ran
+// before. Inside the fork there are warmup iterations followed by measured
+// iterations of at least ITERATION_NS each. Per-run state is reset outside the
+// timed region. Allocation is measured with the thread allocation counter, the
+// same source JMH's gc profiler uses for gc.alloc.rate.norm.
+public class BenchmarkHarness {
+    static final int WARMUP = 3, MEASURE = 5;
+    static final long ITERATION_NS = 500_000_000L;
+
+    // One benchmark: reset() runs untimed before every call to run(), which
+    // returns the number of operations it performed
+    interface Trial {
+        void reset();
+        long run();
+    }
+
+    static class Result {
+        double mean, error;             // operations per second
+        double bytesPerOp;
+    }
+
+    static Result measure(Trial trial) {
+        double rates[] = new double[MEASURE];
+        long ops = 0, bytes = 0;
+
+        for (int it = 0; it < WARMUP + MEASURE; it++) {
+            long elapsed = 0, count = 0, allocated = 0;
+            while (elapsed < ITERATION_NS) {
+                trial.reset();
+                long a0 = allocatedBytes(), t0 = System.nanoTime();
+                count += trial.run();
+                elapsed += System.nanoTime() - t0;
+                allocated += allocatedBytes() - a0;
+            }
+            if (it >= WARMUP) {
+                rates[it - WARMUP] = count * 1e9 / elapsed;
+                ops += count;
+                bytes += allocated;
+            }
+        }
+
+        Result r = new Result();
+        double var = 0;
+        for (double x : rates) r.mean += x / MEASURE;
+        for (double x : rates) var += (x - r.mean) * (x - r.mean) / (MEASURE - 1);
+        r.error = Math.sqrt(var);
+        r.bytesPerOp = (double) bytes / Math.max(ops, 1);
+        return r;
+    }
+
+    // Runs main's class again in a child JVM with the same class path and JVM
+    // options (e.g. -Xmx), printing through this console
+    static void fork(Class<?> main, String... args) throws IOException {
+        List<String> cmd = new ArrayList<>();
+        cmd.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        cmd.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+        cmd.add("-cp");
+        cmd.add(System.getProperty("java.class.path"));
+        cmd.add(main.getName());
+        cmd.addAll(Arrays.asList(args));
+        try {
+            int status = new ProcessBuilder(cmd).inheritIO().start().waitFor();
+            if (status != 0) throw new IOException("Fork " + Arrays.toString(args) + " exited with " + status);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+    }
+
+    static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+    }
+}
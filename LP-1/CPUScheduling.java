@@ -1,4 +1,11 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 public class CPUScheduling {
     static class Process {
@@ -12,7 +19,128 @@ public class CPUScheduling {
         }
     }
 
-    public static void main(String[] args) {
+    // ---------- Process Table ----------
+    // Columnar form of Process[]: one int array per field, so a large trace costs
+    // a handful of arrays instead of one object per process.
+    static class ProcessTable {
+        final int n;
+        final int pid[], at[], bt[], priority[];
+        int order[];
+        int rt[], wt[], tat[], response[];
+        long switches;
+        int last = -1;
+
+        ProcessTable(int pid[], int at[], int bt[], int priority[]) {
+            this.n = pid.length;
+            this.pid = pid;
+            this.at = at;
+            this.bt = bt;
+            this.priority = priority;
+            this.rt = bt.clone();
+            this.wt = new int[n];
+            this.tat = new int[n];
+            this.response = new int[n];
+            Arrays.fill(response, -1);
+        }
+
+        // Load a whole trace (used by the sweep, which needs random access)
+        static ProcessTable read(TraceReader in) throws IOException {
+            int cap = 1024, n = 0;
+            int pid[] = new int[cap], at[] = new int[cap], bt[] = new int[cap], priority[] = new int[cap];
+            while (in.next()) {
+                if (n == cap) {
+                    cap *= 2;
+                    pid = Arrays.copyOf(pid, cap);
+                    at = Arrays.copyOf(at, cap);
+                    bt = Arrays.copyOf(bt, cap);
+                    priority = Arrays.copyOf(priority, cap);
+                }
+                pid[n] = in.pid;
+                at[n] = in.at;
+                bt[n] = in.bt;
+                priority[n] = in.priority;
+                n++;
+            }
+            return new ProcessTable(Arrays.copyOf(pid, n), Arrays.copyOf(at, n), Arrays.copyOf(bt, n), Arrays.copyOf(priority, n));
+        }
+
+        static ProcessTable of(Process p[]) {
+            int n = p.length;
+            int pid[] = new int[n], at[] = new int[n], bt[] = new int[n], priority[] = new int[n];
+            for (int i = 0; i < n; i++) {
+                pid[i] = p[i].pid;
+                at[i] = p[i].at;
+                bt[i] = p[i].bt;
+                priority[i] = p[i].priority;
+            }
+            ProcessTable t = new ProcessTable(pid, at, bt, priority);
+            for (int i = 0; i < n; i++) t.rt[i] = p[i].rt;
+            return t;
+        }
+
+        void copyTo(Process p[]) {
+            for (int i = 0; i < n; i++) {
+                p[i].rt = rt[i];
+                p[i].wt = wt[i];
+                p[i].tat = tat[i];
+            }
+        }
+
+        // Clear per-run state so the same table can be scheduled again
+        void reset() {
+            System.arraycopy(bt, 0, rt, 0, n);
+            Arrays.fill(wt, 0);
+            Arrays.fill(tat, 0);
+            Arrays.fill(response, -1);
+            switches = 0;
+            last = -1;
+        }
+
+        // A new table over the same (read-only) input columns and arrival order,
+        // with its own per-run state
+        ProcessTable fork() {
+            ProcessTable t = new ProcessTable(pid, at, bt, priority);
+            t.order = arrivalOrder();
+            return t;
+        }
+
+        // Called whenever process i gets the CPU; counts context switches
+        void dispatch(int i, int time) {
+            started(i, time);
+            if (last != -1 && last != i) switches++;
+            last = i;
+        }
+
+        // Records the first-response time the first time process i runs
+        void started(int i, int time) {
+            if (response[i] < 0) response[i] = time - at[i];
+        }
+
+        // Indices sorted by arrival time, input order on ties. Computed once and
+        // shared; callers must not modify it.
+        int[] arrivalOrder() {
+            if (order == null) order = sortedIndex(at);
+            return order;
+        }
+    }
+
+    // Stable primitive index sort: each (key, index) pair is packed into one long
+    // so Arrays.sort(long[]) does the work without boxing or a Comparator.
+    static int[] sortedIndex(int key[]) {
+        int n = key.length;
+        long packed[] = new long[n];
+        for (int i = 0; i < n; i++) packed[i] = ((long) key[i] << 32) | i;
+        Arrays.sort(packed);
+        int order[] = new int[n];
+        for (int i = 0; i < n; i++) order[i] = (int) packed[i];
+        return order;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0) {
+            runTrace(args);
+            return;
+        }
         Scanner sc = new Scanner(System.in);
         System.out.print("Enter number of processes: ");
         int n = sc.nextInt();
@@ -26,7 +154,9 @@ public class CPUScheduling {
             p[i] = new Process(i + 1, at, bt, pr);
         }
 
-        System.out.println("\n1. FCFS\n2. SJF (Preemptive)\n3. Priority (Non-Preemptive)\n4. Round Robin");
+        System.out.println("\n1. FCFS\n2. SJF (Preemptive)\n3. Priority (Non-Preemptive)\n4. Round Robin"
+                + "\n5. Priority (Preemptive, Aging)\n6. Multicore (SMP)\n7. Compare All (Parallel Sweep)"
+                + "\n8. Multilevel Feedback Queue\n9. Completely Fair (CFS)");
         System.out.print("Choose algorithm: ");
         int choice = sc.nextInt();
 
@@ -39,124 +169,1348 @@ public class CPUScheduling {
                 int tq = sc.nextInt();
                 roundRobin(p, tq);
                 break;
+            case 5:
+                System.out.print("Enter aging interval (0 for no aging): ");
+                int aging = sc.nextInt();
+                priorityPreemptive(p, aging);
+                break;
+            case 6: {
+                System.out.print("Enter number of cores: ");
+                int cores = sc.nextInt();
+                System.out.print("Scheduling (1. Round Robin  2. SRTF  3. Priority (Non-Preemptive)): ");
+                int policy = sc.nextInt();
+                int quantum = 0;
+                if (policy == SMP_RR) {
+                    System.out.print("Enter time quantum (0 to run each process to completion): ");
+                    quantum = sc.nextInt();
+                }
+                System.out.print("Run queues (1. Global  2. Per-core with work stealing  3. Per-core): ");
+                int mode = sc.nextInt();
+                ProcessTable t = ProcessTable.of(p);
+                SmpStats st = smp(t, cores, policy, quantum, mode);
+                printResult(t, "Multicore (" + cores + " cores)");
+                Metrics m = Metrics.of(t);
+                m.cores = cores;
+                printMetrics(m);
+                printSmp(st);
+                smpScaling(t, cores, policy, quantum, mode);
+                break;
+            }
+            case 7: {
+                System.out.print("Enter smallest, largest and step of time quantum: ");
+                int qMin = sc.nextInt(), qMax = sc.nextInt(), step = sc.nextInt();
+                sweep(ProcessTable.of(p), qMin, qMax, step);
+                break;
+            }
+            case 8: {
+                System.out.print("Enter number of levels: ");
+                int quanta[] = new int[sc.nextInt()];
+                System.out.print("Enter time quantum of each level (0 on the last level for FCFS): ");
+                for (int i = 0; i < quanta.length; i++) quanta[i] = sc.nextInt();
+                System.out.print("Enter priority boost interval (0 for none): ");
+                int boost = sc.nextInt();
+                ProcessTable t = ProcessTable.of(p);
+                int level[] = mlfq(t, quanta, boost);
+                printResult(t, "MLFQ");
+                printMetrics(Metrics.of(t));
+                printClassLatency("Level", level, t);
+                break;
+            }
+            case 9: {
+                System.out.print("Enter scheduling latency and minimum granularity: ");
+                int latency = sc.nextInt(), minGranularity = sc.nextInt();
+                ProcessTable t = ProcessTable.of(p);
+                cfs(t, latency, minGranularity);
+                printResult(t, "CFS");
+                printMetrics(Metrics.of(t));
+                printClassLatency("Nice", t.priority, t);
+                break;
+            }
             default: System.out.println("Invalid choice!");
         }
     }
 
     // ---------- FCFS ----------
+    // The Process[] entry points run the ProcessTable engines and copy the
+    // results back. FCFS, Priority and Round Robin list the results in arrival
+    // order, as the original versions (which sorted p) did.
     static void fcfs(Process p[]) {
-        Arrays.sort(p, Comparator.comparingInt(a -> a.at));
-        int time = 0;
-        for (Process pr : p) {
-            if (time < pr.at) time = pr.at;
-            pr.wt = time - pr.at;
-            time += pr.bt;
-            pr.tat = pr.wt + pr.bt;
-        }
-        printResult(p, "FCFS");
+        ProcessTable t = ProcessTable.of(p);
+        fcfs(t);
+        t.copyTo(p);
+        printResult(t, "FCFS", t.arrivalOrder());
+        printMetrics(Metrics.of(t));
     }
 
     // ---------- SJF (Preemptive) ----------
+    // Event-driven shortest remaining time first: time only jumps between
+    // arrivals and completions instead of ticking one unit at a time.
     static void sjfPreemptive(Process p[]) {
-        int n = p.length;
-        int completed = 0, time = 0, minRt, shortest = -1;
-        boolean check;
+        ProcessTable t = ProcessTable.of(p);
+        srtf(t);
+        t.copyTo(p);
+        printResult(t, "SJF (Preemptive)");
+        printMetrics(Metrics.of(t));
+    }
+
+    static void srtf(ProcessTable t) {
+        int n = t.n;
+        int at[] = t.at, bt[] = t.bt, rt[] = t.rt, wt[] = t.wt, tat[] = t.tat;
+        int order[] = t.arrivalOrder();
+        // Shortest remaining time first, lower index on ties
+        IndexHeap ready = new IndexHeap(n, (a, b) -> rt[a] < rt[b] || (rt[a] == rt[b] && a < b));
+        int completed = 0, time = 0, next = 0;
+
         while (completed != n) {
-            minRt = Integer.MAX_VALUE;
-            check = false;
-            for (int i = 0; i < n; i++) {
-                if (p[i].at <= time && p[i].rt > 0 && p[i].rt < minRt) {
-                    minRt = p[i].rt;
-                    shortest = i;
-                    check = true;
-                }
-            }
-            if (!check) {
-                time++;
+            while (next < n && at[order[next]] <= time) ready.push(order[next++]);
+            if (ready.isEmpty()) {
+                time = at[order[next]];    // CPU idle: jump to next arrival
                 continue;
             }
-            p[shortest].rt--;
-            if (p[shortest].rt == 0) {
+            int cur = ready.pop();
+            t.dispatch(cur, time);
+            int run = rt[cur];
+            if (next < n && at[order[next]] - time < run) run = at[order[next]] - time;
+            rt[cur] -= run;
+            time += run;
+            if (rt[cur] == 0) {
                 completed++;
-                int finish = time + 1;
-                p[shortest].tat = finish - p[shortest].at;
-                p[shortest].wt = p[shortest].tat - p[shortest].bt;
+                tat[cur] = time - at[cur];
+                wt[cur] = tat[cur] - bt[cur];
+            } else {
+                ready.push(cur);
             }
-            time++;
         }
-        printResult(p, "SJF (Preemptive)");
+    }
+
+    // ---------- Index Heap ----------
+    // Binary min-heap of process indices. The ordering is supplied by the caller
+    // so every dispatcher can share it without boxing.
+    interface IndexOrder {
+        boolean before(int a, int b);
+    }
+
+    static class IndexHeap {
+        int heap[];
+        int size;
+        IndexOrder order;
+
+        IndexHeap(int capacity, IndexOrder order) {
+            this.heap = new int[Math.max(capacity, 1)];
+            this.order = order;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        int peek() {
+            return heap[0];
+        }
+
+        void push(int x) {
+            if (size == heap.length) heap = Arrays.copyOf(heap, size * 2);
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >> 1;
+                if (!order.before(x, heap[parent])) break;
+                heap[i] = heap[parent];
+                i = parent;
+            }
+            heap[i] = x;
+        }
+
+        int pop() {
+            int top = heap[0];
+            int last = heap[--size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) break;
+                if (child + 1 < size && order.before(heap[child + 1], heap[child])) child++;
+                if (!order.before(heap[child], last)) break;
+                heap[i] = heap[child];
+                i = child;
+            }
+            heap[i] = last;
+            return top;
+        }
     }
 
     // ---------- Priority (Non-Preemptive) ----------
+    // Arrived processes wait in a heap keyed by (priority, arrival time, pid);
+    // an idle CPU jumps straight to the next arrival.
     static void priorityNonPreemptive(Process p[]) {
-        Arrays.sort(p, Comparator.comparingInt(a -> a.at));
-        int time = 0, completed = 0;
-        boolean[] done = new boolean[p.length];
-
-        while (completed != p.length) {
-            int idx = -1, highest = Integer.MAX_VALUE;
-            for (int i = 0; i < p.length; i++) {
-                if (!done[i] && p[i].at <= time) {
-                    if (p[i].priority < highest) {
-                        highest = p[i].priority;
-                        idx = i;
-                    }
-                }
-            }
-            if (idx == -1) {
-                time++;
+        ProcessTable t = ProcessTable.of(p);
+        priority(t);
+        t.copyTo(p);
+        printResult(t, "Priority (Non-Preemptive)", t.arrivalOrder());
+        printMetrics(Metrics.of(t));
+    }
+
+    static void priority(ProcessTable t) {
+        int n = t.n;
+        int pid[] = t.pid, at[] = t.at, bt[] = t.bt, pr[] = t.priority, rt[] = t.rt, wt[] = t.wt, tat[] = t.tat;
+        int order[] = t.arrivalOrder();
+        IndexHeap ready = new IndexHeap(n, (a, b) -> pr[a] != pr[b] ? pr[a] < pr[b]
+                : at[a] != at[b] ? at[a] < at[b] : pid[a] < pid[b]);
+        int completed = 0, time = 0, next = 0;
+
+        while (completed != n) {
+            while (next < n && at[order[next]] <= time) ready.push(order[next++]);
+            if (ready.isEmpty()) {
+                time = at[order[next]];
                 continue;
             }
-            done[idx] = true;
-            p[idx].wt = time - p[idx].at;
-            time += p[idx].bt;
-            p[idx].tat = p[idx].wt + p[idx].bt;
+            int cur = ready.pop();
+            t.dispatch(cur, time);
+            wt[cur] = time - at[cur];
+            time += bt[cur];
+            rt[cur] = 0;
+            tat[cur] = wt[cur] + bt[cur];
             completed++;
         }
-        printResult(p, "Priority (Non-Preemptive)");
+    }
+
+    // ---------- Priority (Preemptive, Aging) ----------
+    // A waiting process gains one priority level per 'aging' time units spent in
+    // the ready queue (aging = 0 disables it). Its effective priority at time t is
+    // priority - (t - readySince) / aging, so scaling by 'aging' gives the fixed
+    // heap key priority * aging + readySince. A running process keeps the
+    // effective priority it was dispatched with and is preempted only by a
+    // strictly better waiting one.
+    static void priorityPreemptive(Process p[], int aging) {
+        ProcessTable t = ProcessTable.of(p);
+        priorityPreemptive(t, aging);
+        t.copyTo(p);
+        printResult(t, aging > 0 ? "Priority (Preemptive, Aging " + aging + ")" : "Priority (Preemptive)");
+        printMetrics(Metrics.of(t));
+    }
+
+    static void priorityPreemptive(ProcessTable t, int aging) {
+        int n = t.n;
+        int pid[] = t.pid, at[] = t.at, bt[] = t.bt, pr[] = t.priority, rt[] = t.rt, wt[] = t.wt, tat[] = t.tat;
+        int order[] = t.arrivalOrder();
+        long key[] = new long[n];
+        IndexHeap ready = new IndexHeap(n, (a, b) -> key[a] != key[b] ? key[a] < key[b]
+                : at[a] != at[b] ? at[a] < at[b] : pid[a] < pid[b]);
+        int completed = 0, time = 0, next = 0, cur = -1, dispatched = 0;
+
+        while (completed != n) {
+            while (next < n && at[order[next]] <= time) {
+                int i = order[next++];
+                key[i] = agedKey(pr[i], at[i], aging);
+                ready.push(i);
+            }
+            if (cur == -1) {
+                if (ready.isEmpty()) {
+                    time = at[order[next]];
+                    continue;
+                }
+                cur = ready.pop();
+                t.dispatch(cur, time);
+                dispatched = time;
+            } else if (!ready.isEmpty() && key[ready.peek()] < runningKey(key[cur], dispatched, time, aging)) {
+                key[cur] = runningKey(key[cur], dispatched, time, aging);
+                ready.push(cur);
+                cur = ready.pop();
+                t.dispatch(cur, time);
+                dispatched = time;
+            }
+
+            // Run until completion, the next arrival, or the moment aging lets
+            // the best waiting process overtake the running one
+            long until = (long) time + rt[cur];
+            if (next < n) until = Math.min(until, at[order[next]]);
+            if (aging > 0 && !ready.isEmpty())
+                until = Math.min(until, key[ready.peek()] - key[cur] + dispatched + 1);
+            int run = (int) (until - time);
+            rt[cur] -= run;
+            time += run;
+            if (rt[cur] == 0) {
+                tat[cur] = time - at[cur];
+                wt[cur] = tat[cur] - bt[cur];
+                completed++;
+                cur = -1;
+            }
+        }
+    }
+
+    // Heap key of a process that entered the ready queue at readySince
+    static long agedKey(int priority, int readySince, int aging) {
+        return aging > 0 ? (long) priority * aging + readySince : priority;
+    }
+
+    // Key of the running process at time t: its effective priority is frozen at
+    // dispatch, which in scaled units means the key grows with the time run
+    static long runningKey(long key, int dispatched, int t, int aging) {
+        return aging > 0 ? key + (t - dispatched) : key;
     }
 
     // ---------- Round Robin (Preemptive) ----------
     static void roundRobin(Process p[], int tq) {
-        Queue<Process> q = new LinkedList<>();
+        ProcessTable t = ProcessTable.of(p);
+        roundRobin(t, tq);
+        t.copyTo(p);
+        printResult(t, "Round Robin", t.arrivalOrder());
+        printMetrics(Metrics.of(t));
+    }
+
+    // ---------- FCFS / Round Robin on the Process Table ----------
+    static void fcfs(ProcessTable t) {
+        int at[] = t.at, bt[] = t.bt, rt[] = t.rt, wt[] = t.wt, tat[] = t.tat;
         int time = 0;
-        Arrays.sort(p, Comparator.comparingInt(a -> a.at));
-        q.add(p[0]);
-        int idx = 1;
+        for (int i : t.arrivalOrder()) {
+            if (time < at[i]) time = at[i];
+            t.dispatch(i, time);
+            wt[i] = time - at[i];
+            time += bt[i];
+            rt[i] = 0;
+            tat[i] = wt[i] + bt[i];
+        }
+    }
+
+    // Event-driven Round Robin. The ready queue is a ring of indices sized to the
+    // process count (a process is queued at most once), so nothing is allocated
+    // after setup. An empty queue jumps to the next arrival instead of ending the
+    // run, and a process that is alone on the CPU runs all the quanta up to the
+    // next arrival in one step.
+    static void roundRobin(ProcessTable t, int tq) {
+        int n = t.n;
+        int at[] = t.at, bt[] = t.bt, rt[] = t.rt, wt[] = t.wt, tat[] = t.tat;
+        int order[] = t.arrivalOrder();
+        IndexQueue q = new IndexQueue(n);
+        int time = 0, idx = 0, completed = 0;
 
-        while (!q.isEmpty()) {
-            Process cur = q.poll();
-            if (time < cur.at) time = cur.at;
+        while (completed != n) {
+            if (q.isEmpty()) {
+                if (time < at[order[idx]]) time = at[order[idx]];
+                while (idx < n && at[order[idx]] <= time) q.add(order[idx++]);
+            }
+            int cur = q.poll();
+            t.dispatch(cur, time);
+
+            if (q.isEmpty() && rt[cur] > tq) {
+                // Fast-forward whole quanta that end before the next arrival,
+                // leaving at least one quantum for the normal path below
+                int limit = rt[cur] - 1;
+                if (idx < n) limit = Math.min(limit, at[order[idx]] - 1 - time);
+                int skip = limit / tq * tq;
+                rt[cur] -= skip;
+                time += skip;
+            }
 
-            int exec = Math.min(cur.rt, tq);
-            cur.rt -= exec;
+            int exec = Math.min(rt[cur], tq);
+            rt[cur] -= exec;
             time += exec;
 
             // Add processes that have arrived
-            while (idx < p.length && p[idx].at <= time) q.add(p[idx++]);
+            while (idx < n && at[order[idx]] <= time) q.add(order[idx++]);
 
-            if (cur.rt > 0)
+            if (rt[cur] > 0)
                 q.add(cur);
             else {
-                cur.tat = time - cur.at;
-                cur.wt = cur.tat - cur.bt;
+                tat[cur] = time - at[cur];
+                wt[cur] = tat[cur] - bt[cur];
+                completed++;
+            }
+        }
+    }
+
+    // ---------- Multicore (SMP) ----------
+    // Round Robin, SRTF or non-preemptive Priority on several cores (Round Robin
+    // with quantum 0 runs each dispatch to completion, i.e. FCFS). With a global
+    // queue any idle core takes the next ready process. With per-core queues an
+    // arrival goes to the least loaded core, a preempted process returns to its
+    // own core, and with work stealing an idle core takes from the longest queue.
+    // A migration is a dispatch on a different core from the one the process
+    // last ran on.
+    static final int GLOBAL_QUEUE = 1, WORK_STEALING = 2, PARTITIONED = 3;
+    static final int SMP_RR = 1, SMP_SRTF = 2, SMP_PRIORITY = 3;
+
+    static class SmpStats {
+        int cores, makespan;
+        long busy[];
+        long migrations, steals;
+
+        SmpStats(int cores) {
+            this.cores = cores;
+            this.busy = new long[cores];
+        }
+    }
+
+    static SmpStats smp(ProcessTable t, int cores, int tq, int mode) {
+        int n = t.n;
+        int at[] = t.at, bt[] = t.bt, rt[] = t.rt, wt[] = t.wt, tat[] = t.tat;
+        int order[] = t.arrivalOrder();
+        boolean global = mode == GLOBAL_QUEUE;
+        SmpStats st = new SmpStats(cores);
+
+        IndexQueue q[] = new IndexQueue[global ? 1 : cores];
+        for (int c = 0; c < q.length; c++) q[c] = new IndexQueue(global ? n : 16);
+        int cur[] = new int[cores], sliceEnd[] = new int[cores], lastCore[] = new int[n], lastRun[] = new int[cores];
+        Arrays.fill(cur, -1);
+        Arrays.fill(lastCore, -1);
+        Arrays.fill(lastRun, -1);
+        int time = 0, idx = 0, completed = 0;
+
+        while (completed != n) {
+            // Arrivals at this instant queue ahead of preempted processes (as in roundRobin)
+            while (idx < n && at[order[idx]] <= time) {
+                int i = order[idx++];
+                q[global ? 0 : leastLoaded(q, cur)].add(i);
+            }
+            for (int c = 0; c < cores; c++) {
+                int i = cur[c];
+                if (i == -1 || sliceEnd[c] != time) continue;
+                cur[c] = -1;
+                if (rt[i] > 0) {
+                    q[global ? 0 : c].add(i);
+                } else {
+                    tat[i] = time - at[i];
+                    wt[i] = tat[i] - bt[i];
+                    completed++;
+                    st.makespan = time;
+                }
+            }
+
+            // Idle cores pick up work; then jump to the next slice end or arrival
+            int nextEvent = idx < n ? at[order[idx]] : Integer.MAX_VALUE;
+            for (int c = 0; c < cores; c++) {
+                if (cur[c] == -1) {
+                    int i = takeReady(q, c, mode, st);
+                    if (i != -1) {
+                        int run = tq > 0 ? Math.min(rt[i], tq) : rt[i];
+                        rt[i] -= run;
+                        st.busy[c] += run;
+                        if (lastCore[i] != -1 && lastCore[i] != c) st.migrations++;
+                        if (lastRun[c] != -1 && lastRun[c] != i) t.switches++;
+                        t.started(i, time);
+                        lastCore[i] = c;
+                        lastRun[c] = i;
+                        cur[c] = i;
+                        sliceEnd[c] = time + run;
+                    }
+                }
+                if (cur[c] != -1) nextEvent = Math.min(nextEvent, sliceEnd[c]);
+            }
+            time = nextEvent;
+        }
+        return st;
+    }
+
+    // SRTF and Priority keep each ready queue in an IndexHeap ordered like srtf
+    // and priority. Under SRTF an arrival preempts the running process with the
+    // most remaining time (with a global queue) or its own core's process (with
+    // per-core queues) when it is strictly shorter; a thief takes the best
+    // process of the longest queue.
+    static SmpStats smpHeap(ProcessTable t, int cores, int policy, int mode) {
+        int n = t.n;
+        int pid[] = t.pid, at[] = t.at, bt[] = t.bt, pr[] = t.priority, rt[] = t.rt, wt[] = t.wt, tat[] = t.tat;
+        int order[] = t.arrivalOrder();
+        boolean global = mode == GLOBAL_QUEUE, preemptive = policy == SMP_SRTF;
+        IndexOrder before = preemptive ? (a, b) -> rt[a] < rt[b] || (rt[a] == rt[b] && a < b)
+                : (a, b) -> pr[a] != pr[b] ? pr[a] < pr[b] : at[a] != at[b] ? at[a] < at[b] : pid[a] < pid[b];
+        SmpStats st = new SmpStats(cores);
+
+        IndexHeap q[] = new IndexHeap[global ? 1 : cores];
+        for (int c = 0; c < q.length; c++) q[c] = new IndexHeap(global ? n : 16, before);
+        int cur[] = new int[cores], lastCore[] = new int[n], lastRun[] = new int[cores];
+        Arrays.fill(cur, -1);
+        Arrays.fill(lastCore, -1);
+        Arrays.fill(lastRun, -1);
+        int time = 0, prev = 0, idx = 0, completed = 0;
+
+        while (completed != n) {
+            // Charge the elapsed time to every running process
+            for (int c = 0; c < cores; c++) {
+                int i = cur[c];
+                if (i == -1) continue;
+                rt[i] -= time - prev;
+                st.busy[c] += time - prev;
+                if (rt[i] == 0) {
+                    tat[i] = time - at[i];
+                    wt[i] = tat[i] - bt[i];
+                    completed++;
+                    st.makespan = time;
+                    cur[c] = -1;
+                }
+            }
+            prev = time;
+            while (idx < n && at[order[idx]] <= time) {
+                int i = order[idx++];
+                q[global ? 0 : leastLoaded(q, cur)].push(i);
+            }
+
+            for (int c = 0; c < cores; c++) {
+                if (cur[c] == -1) {
+                    int i = takeReady(q, c, mode, st);
+                    if (i != -1) run(t, c, i, time, cur, lastCore, lastRun, st);
+                }
+            }
+            if (preemptive) {
+                if (global) {
+                    // Every core is busy once the queue is non-empty
+                    while (!q[0].isEmpty()) {
+                        int victim = 0;
+                        for (int c = 1; c < cores; c++) if (before.before(cur[victim], cur[c])) victim = c;
+                        if (!before.before(q[0].peek(), cur[victim])) break;
+                        int i = q[0].pop();
+                        q[0].push(cur[victim]);
+                        run(t, victim, i, time, cur, lastCore, lastRun, st);
+                    }
+                } else {
+                    for (int c = 0; c < cores; c++) {
+                        if (q[c].isEmpty() || !before.before(q[c].peek(), cur[c])) continue;
+                        int i = q[c].pop();
+                        q[c].push(cur[c]);
+                        run(t, c, i, time, cur, lastCore, lastRun, st);
+                    }
+                }
+            }
+
+            // Jump to the next completion or arrival
+            int nextEvent = idx < n ? at[order[idx]] : Integer.MAX_VALUE;
+            for (int c = 0; c < cores; c++) if (cur[c] != -1) nextEvent = Math.min(nextEvent, time + rt[cur[c]]);
+            time = nextEvent;
+        }
+        return st;
+    }
+
+    // Puts process i on core c at the given time
+    static void run(ProcessTable t, int c, int i, int time, int cur[], int lastCore[], int lastRun[], SmpStats st) {
+        if (lastCore[i] != -1 && lastCore[i] != c) st.migrations++;
+        if (lastRun[c] != -1 && lastRun[c] != i) t.switches++;
+        t.started(i, time);
+        lastCore[i] = c;
+        lastRun[c] = i;
+        cur[c] = i;
+    }
+
+    // Core with the fewest queued plus running processes, lowest id on ties
+    static int leastLoaded(IndexQueue q[], int cur[]) {
+        int best = 0, bestLoad = Integer.MAX_VALUE;
+        for (int c = 0; c < q.length; c++) {
+            int load = q[c].size + (cur[c] != -1 ? 1 : 0);
+            if (load < bestLoad) {
+                bestLoad = load;
+                best = c;
+            }
+        }
+        return best;
+    }
+
+    static int takeReady(IndexQueue q[], int c, int mode, SmpStats st) {
+        if (mode == GLOBAL_QUEUE) return q[0].isEmpty() ? -1 : q[0].poll();
+        if (!q[c].isEmpty()) return q[c].poll();
+        if (mode != WORK_STEALING) return -1;
+        int victim = -1;
+        for (int v = 0; v < q.length; v++)
+            if (q[v].size > 0 && (victim == -1 || q[v].size > q[victim].size)) victim = v;
+        if (victim == -1) return -1;
+        st.steals++;
+        return q[victim].pollLast();
+    }
+
+    static int leastLoaded(IndexHeap q[], int cur[]) {
+        int best = 0, bestLoad = Integer.MAX_VALUE;
+        for (int c = 0; c < q.length; c++) {
+            int load = q[c].size + (cur[c] != -1 ? 1 : 0);
+            if (load < bestLoad) {
+                bestLoad = load;
+                best = c;
+            }
+        }
+        return best;
+    }
+
+    static int takeReady(IndexHeap q[], int c, int mode, SmpStats st) {
+        if (mode == GLOBAL_QUEUE) return q[0].isEmpty() ? -1 : q[0].pop();
+        if (!q[c].isEmpty()) return q[c].pop();
+        if (mode != WORK_STEALING) return -1;
+        int victim = -1;
+        for (int v = 0; v < q.length; v++)
+            if (q[v].size > 0 && (victim == -1 || q[v].size > q[victim].size)) victim = v;
+        if (victim == -1) return -1;
+        st.steals++;
+        return q[victim].pop();
+    }
+
+    static SmpStats smp(ProcessTable t, int cores, int policy, int tq, int mode) {
+        return policy == SMP_RR ? smp(t, cores, tq, mode) : smpHeap(t, cores, policy, mode);
+    }
+
+    static void printSmp(SmpStats st) {
+        System.out.println("\nCore\tBusy\tUtilization");
+        for (int c = 0; c < st.cores; c++)
+            System.out.printf("%d\t%d\t%.2f%%\n", c, st.busy[c], st.makespan == 0 ? 0.0 : 100.0 * st.busy[c] / st.makespan);
+        System.out.println("Makespan = " + st.makespan + ", Migrations = " + st.migrations + ", Steals = " + st.steals);
+    }
+
+    // Re-run the same table on 1..maxCores cores to see how the averages scale
+    static void smpScaling(ProcessTable t, int maxCores, int policy, int tq, int mode) {
+        System.out.println("\nCores\tAvg WT\tAvg TAT\tThroughput\tUtilization\tMigrations");
+        for (int cores = 1; cores <= maxCores; cores++) {
+            t.reset();
+            SmpStats st = smp(t, cores, policy, tq, mode);
+            long totalWT = 0, totalTAT = 0, busy = 0;
+            for (int i = 0; i < t.n; i++) {
+                totalWT += t.wt[i];
+                totalTAT += t.tat[i];
+            }
+            for (long b : st.busy) busy += b;
+            double makespan = Math.max(st.makespan, 1);
+            System.out.printf("%d\t%.2f\t%.2f\t%.4f\t\t%.2f%%\t\t%d\n", cores, (double) totalWT / t.n, (double) totalTAT / t.n,
+                    t.n / makespan, 100.0 * busy / (makespan * cores), st.migrations);
+        }
+    }
+
+    // ---------- Multilevel Feedback Queue ----------
+    // quanta[k] is the time a process may use at level k before it is demoted
+    // (0 on the last level means run to completion). New arrivals enter level 0
+    // and preempt a process running at a lower level; a preempted process keeps
+    // the time it has already used at its level. Every 'boost' time units all
+    // processes move back to level 0 (boost = 0 disables it). With a single level
+    // this is exactly roundRobin. Returns the level each process finished at.
+    static int[] mlfq(ProcessTable t, int quanta[], int boost) {
+        int n = t.n, levels = quanta.length;
+        int at[] = t.at, bt[] = t.bt, rt[] = t.rt, wt[] = t.wt, tat[] = t.tat;
+        int order[] = t.arrivalOrder();
+        IndexQueue q[] = new IndexQueue[levels];
+        for (int k = 0; k < levels; k++) q[k] = new IndexQueue(16);
+        int level[] = new int[n], used[] = new int[n];
+        long nextBoost = boost > 0 ? boost : Long.MAX_VALUE;
+        int time = 0, idx = 0, completed = 0, cur = -1;
+
+        while (completed != n) {
+            while (idx < n && at[order[idx]] <= time) q[0].add(order[idx++]);
+
+            // Quantum used up: demote (the last level just goes round robin)
+            if (cur != -1 && quanta[level[cur]] > 0 && used[cur] >= quanta[level[cur]]) {
+                level[cur] = Math.min(level[cur] + 1, levels - 1);
+                used[cur] = 0;
+                q[level[cur]].add(cur);
+                cur = -1;
+            }
+
+            if (time >= nextBoost) {
+                if (cur != -1) {
+                    q[level[cur]].add(cur);
+                    cur = -1;
+                }
+                for (int k = 0; k < levels; k++) {
+                    for (int m = q[k].size; m > 0; m--) {
+                        int i = q[k].poll();
+                        level[i] = 0;
+                        used[i] = 0;
+                        q[0].add(i);
+                    }
+                }
+                while (nextBoost <= time) nextBoost += boost;
+            }
+
+            // A process waiting at a higher level preempts the running one
+            if (cur != -1) {
+                for (int k = 0; k < level[cur]; k++) {
+                    if (!q[k].isEmpty()) {
+                        q[level[cur]].add(cur);
+                        cur = -1;
+                        break;
+                    }
+                }
+            }
+            if (cur == -1) {
+                for (int k = 0; k < levels && cur == -1; k++)
+                    if (!q[k].isEmpty()) cur = q[k].poll();
+                if (cur == -1) {
+                    time = at[order[idx]];
+                    continue;
+                }
+                t.dispatch(cur, time);
+            }
+
+            // Run until the quantum ends, the process finishes, a boost is due, or
+            // (below level 0) a new arrival could preempt it
+            long until = (long) time + rt[cur];
+            if (quanta[level[cur]] > 0) until = Math.min(until, (long) time + quanta[level[cur]] - used[cur]);
+            if (level[cur] > 0 && idx < n) until = Math.min(until, at[order[idx]]);
+            until = Math.min(until, nextBoost);
+            int run = (int) (until - time);
+            rt[cur] -= run;
+            used[cur] += run;
+            time += run;
+            if (rt[cur] == 0) {
+                tat[cur] = time - at[cur];
+                wt[cur] = tat[cur] - bt[cur];
+                completed++;
+                cur = -1;
+            }
+        }
+        return level;
+    }
+
+    // ---------- Completely Fair Scheduler ----------
+    // Runnable processes sit in a heap ordered by virtual runtime. The priority
+    // field is used as the nice value (-20..19) and mapped to the kernel's weight
+    // table; a process gets a slice of 'latency' proportional to its share of the
+    // total weight (at least minGranularity), and its vruntime grows by the time
+    // run scaled by NICE_0_WEIGHT / weight. New arrivals start at the current
+    // minimum vruntime so they cannot starve processes already running.
+    static final int NICE_0_WEIGHT = 1024;
+    static final int PRIO_TO_WEIGHT[] = {
+        88761, 71755, 56483, 46273, 36291, 29154, 23254, 18705, 14949, 11916,
+        9548, 7620, 6100, 4904, 3906, 3121, 2501, 1991, 1586, 1277,
+        1024, 820, 655, 526, 423, 335, 272, 215, 172, 137,
+        110, 87, 70, 56, 45, 36, 29, 23, 18, 15
+    };
+
+    static void cfs(ProcessTable t, int latency, int minGranularity) {
+        int n = t.n;
+        int at[] = t.at, bt[] = t.bt, pr[] = t.priority, rt[] = t.rt, wt[] = t.wt, tat[] = t.tat;
+        int order[] = t.arrivalOrder();
+        long vruntime[] = new long[n];
+        int weight[] = new int[n];
+        IndexHeap ready = new IndexHeap(n, (a, b) -> vruntime[a] != vruntime[b] ? vruntime[a] < vruntime[b] : a < b);
+        long minVruntime = 0, totalWeight = 0;
+        int time = 0, idx = 0, completed = 0;
+        minGranularity = Math.max(minGranularity, 1);
+
+        while (completed != n) {
+            while (idx < n && at[order[idx]] <= time) {
+                int i = order[idx++];
+                weight[i] = PRIO_TO_WEIGHT[Math.max(-20, Math.min(19, pr[i])) + 20];
+                vruntime[i] = minVruntime;
+                totalWeight += weight[i];
+                ready.push(i);
+            }
+            if (ready.isEmpty()) {
+                time = at[order[idx]];
+                continue;
+            }
+            int cur = ready.pop();
+            t.dispatch(cur, time);
+            minVruntime = Math.max(minVruntime, vruntime[cur]);
+
+            long slice = Math.max(minGranularity, (long) latency * weight[cur] / totalWeight);
+            long run = Math.min(rt[cur], slice);
+            if (ready.isEmpty()) {
+                // Alone on the CPU: keep running until the next arrival
+                run = rt[cur];
+                if (idx < n) run = Math.min(run, Math.max(slice, at[order[idx]] - time));
+            }
+            rt[cur] -= run;
+            time += run;
+            vruntime[cur] += run * (NICE_0_WEIGHT << 10) / weight[cur];
+            if (rt[cur] == 0) {
+                tat[cur] = time - at[cur];
+                wt[cur] = tat[cur] - bt[cur];
+                totalWeight -= weight[cur];
+                completed++;
+            } else {
+                ready.push(cur);
+            }
+        }
+    }
+
+    // Average WT / TAT for each class (MLFQ level, CFS nice value, ...)
+    static void printClassLatency(String label, int cls[], ProcessTable t) {
+        TreeMap<Integer, long[]> groups = new TreeMap<>();
+        for (int i = 0; i < t.n; i++) {
+            long g[] = groups.computeIfAbsent(cls[i], k -> new long[3]);
+            g[0]++;
+            g[1] += t.wt[i];
+            g[2] += t.tat[i];
+        }
+        System.out.println("\n" + label + "\tCount\tAvg WT\tAvg TAT");
+        for (Map.Entry<Integer, long[]> e : groups.entrySet()) {
+            long g[] = e.getValue();
+            System.out.printf("%d\t%d\t%.2f\t%.2f\n", e.getKey(), g[0], (double) g[1] / g[0], (double) g[2] / g[0]);
+        }
+    }
+
+    // ---------- Parallel Sweep ----------
+    // Runs every algorithm, and Round Robin for each quantum in [qMin, qMax], as
+    // separate fork-join tasks. All runs share the table's input columns and
+    // arrival order; each gets its own rt/wt/tat through fork().
+    static final int SWEEP_FCFS = 0, SWEEP_SRTF = 1, SWEEP_PRIORITY = 2, SWEEP_PRIORITY_PREEMPTIVE = 3, SWEEP_RR = 4;
+
+    static class SweepRun extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        final ProcessTable shared;
+        final int algo, tq;
+        Metrics m;
+
+        SweepRun(ProcessTable shared, int algo, int tq) {
+            this.shared = shared;
+            this.algo = algo;
+            this.tq = tq;
+        }
+
+        String name() {
+            switch (algo) {
+                case SWEEP_FCFS: return "FCFS";
+                case SWEEP_SRTF: return "SRTF";
+                case SWEEP_PRIORITY: return "Priority (Non-Preemptive)";
+                case SWEEP_PRIORITY_PREEMPTIVE: return "Priority (Preemptive)";
+                default: return "Round Robin (q=" + tq + ")";
+            }
+        }
+
+        protected void compute() {
+            ProcessTable t = shared.fork();
+            switch (algo) {
+                case SWEEP_FCFS: fcfs(t); break;
+                case SWEEP_SRTF: srtf(t); break;
+                case SWEEP_PRIORITY: priority(t); break;
+                case SWEEP_PRIORITY_PREEMPTIVE: priorityPreemptive(t, 0); break;
+                default: roundRobin(t, tq); break;
+            }
+            m = Metrics.of(t);
+        }
+    }
+
+    static void sweep(ProcessTable t, int qMin, int qMax, int step) {
+        if (t.n == 0) return;
+        t.arrivalOrder();    // sort once, before the runs share it
+        List<SweepRun> runs = new ArrayList<>();
+        for (int algo = SWEEP_FCFS; algo < SWEEP_RR; algo++) runs.add(new SweepRun(t, algo, 0));
+        for (int q = Math.max(qMin, 1); q <= qMax; q += Math.max(step, 1)) runs.add(new SweepRun(t, SWEEP_RR, q));
+
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        for (SweepRun r : runs) pool.execute(r);
+        for (SweepRun r : runs) r.join();
+
+        System.out.println("\nAlgorithm\t\t\tAvg WT\t\tp99 WT\t\tAvg TAT\t\tp99 TAT\t\tThroughput\tContext Switches");
+        for (SweepRun r : runs) {
+            Metrics m = r.m;
+            System.out.printf("%-28s\t%.2f\t\t%d\t\t%.2f\t\t%d\t\t%.4f\t\t%d\n", r.name(), m.avg(m.totalWT), m.wt.percentile(99),
+                    m.avg(m.totalTAT), m.tat.percentile(99), m.count / (double) Math.max(m.span(), 1), m.switches);
+        }
+    }
+
+    // ---------- Metrics ----------
+    // Everything is a plain counter or an array increment, so recording costs
+    // nothing per process beyond the histogram bucket lookup.
+    static class Metrics {
+        final LatencyHistogram wt = new LatencyHistogram(), tat = new LatencyHistogram(), response = new LatencyHistogram();
+        long count, totalWT, totalTAT, totalResponse, busy, switches;
+        long firstArrival = Long.MAX_VALUE, lastCompletion = Long.MIN_VALUE;
+        int cores = 1;
+
+        void record(int at, int bt, int wt, int tat, long response) {
+            count++;
+            totalWT += wt;
+            totalTAT += tat;
+            totalResponse += response;
+            busy += bt;
+            this.wt.record(wt);
+            this.tat.record(tat);
+            this.response.record(response);
+            if (at < firstArrival) firstArrival = at;
+            if ((long) at + tat > lastCompletion) lastCompletion = (long) at + tat;
+        }
+
+        static Metrics of(ProcessTable t) {
+            Metrics m = new Metrics();
+            for (int i = 0; i < t.n; i++) m.record(t.at[i], t.bt[i], t.wt[i], t.tat[i], t.response[i]);
+            m.switches = t.switches;
+            return m;
+        }
+
+        // From the first arrival to the last completion
+        long span() {
+            return count == 0 ? 0 : lastCompletion - firstArrival;
+        }
+
+        long idle() {
+            return span() * cores - busy;
+        }
+
+        double avg(long total) {
+            return count == 0 ? 0.0 : (double) total / count;
+        }
+    }
+
+    static void printMetrics(Metrics m) {
+        System.out.println("\nContext Switches = " + m.switches);
+        System.out.printf("CPU Utilization = %.2f%%, Idle Time = %d\n",
+                m.span() == 0 ? 0.0 : 100.0 * m.busy / ((double) m.span() * m.cores), m.idle());
+        System.out.println("\t\tAvg\tp50\tp99\tp99.9\tMax");
+        printPercentiles("Waiting", m.wt, m.avg(m.totalWT));
+        printPercentiles("Turnaround", m.tat, m.avg(m.totalTAT));
+        printPercentiles("Response", m.response, m.avg(m.totalResponse));
+    }
+
+    static void printPercentiles(String name, LatencyHistogram h, double avg) {
+        System.out.printf("%-10s\t%.2f\t%d\t%d\t%d\t%d\n", name, avg,
+                h.percentile(50), h.percentile(99), h.percentile(99.9), h.max);
+    }
+
+    // ---------- Latency Histogram ----------
+    // HDR-style log-linear histogram. Values below 2^SUB_BITS get their own
+    // bucket; above that each power of two is split into 2^(SUB_BITS-1) equal
+    // buckets, so a reported percentile is within 1/128 of the true value. The
+    // bucket array is fixed, so recording never allocates.
+    static class LatencyHistogram {
+        static final int SUB_BITS = 8, HALF = 1 << (SUB_BITS - 1);
+        final long counts[] = new long[(64 - SUB_BITS + 2) * HALF];
+        long total, max;
+
+        void record(long v) {
+            if (v < 0) v = 0;
+            counts[index(v)]++;
+            total++;
+            if (v > max) max = v;
+        }
+
+        static int index(long v) {
+            if (v < (1 << SUB_BITS)) return (int) v;
+            int shift = 63 - Long.numberOfLeadingZeros(v) - SUB_BITS + 1;
+            return shift * HALF + (int) (v >>> shift);
+        }
+
+        // Largest value that falls in bucket idx
+        static long highest(int idx) {
+            if (idx < (1 << SUB_BITS)) return idx;
+            int shift = idx / HALF - 1;
+            long top = idx - (long) shift * HALF;
+            return ((top + 1) << shift) - 1;
+        }
+
+        long percentile(double p) {
+            if (total == 0) return 0;
+            long target = Math.max(1, (long) Math.ceil(p / 100 * total)), seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= target) return Math.min(highest(i), max);
             }
+            return max;
         }
-        printResult(p, "Round Robin");
     }
 
     // ---------- Print ----------
-    static void printResult(Process p[], String algo) {
+    static void printResult(ProcessTable t, String algo) {
+        printResult(t, algo, null);
+    }
+
+    // Rows in the given index order (input order when order is null)
+    static void printResult(ProcessTable t, String algo, int order[]) {
         System.out.println("\n" + algo + " Scheduling Result:");
         System.out.println("PID\tAT\tBT\tPri\tWT\tTAT");
         float totalWT = 0, totalTAT = 0;
-        for (Process pr : p) {
-            System.out.println(pr.pid + "\t" + pr.at + "\t" + pr.bt + "\t" + pr.priority + "\t" + pr.wt + "\t" + pr.tat);
-            totalWT += pr.wt;
-            totalTAT += pr.tat;
+        for (int k = 0; k < t.n; k++) {
+            int i = order != null ? order[k] : k;
+            System.out.println(t.pid[i] + "\t" + t.at[i] + "\t" + t.bt[i] + "\t" + t.priority[i] + "\t" + t.wt[i] + "\t" + t.tat[i]);
+            totalWT += t.wt[i];
+            totalTAT += t.tat[i];
+        }
+        System.out.printf("Average Waiting Time = %.2f\n", totalWT / t.n);
+        System.out.printf("Average Turnaround Time = %.2f\n", totalTAT / t.n);
+    }
+
+    // ---------- Trace Mode ----------
+    // java CPUScheduling <trace.csv|trace.bin> <fcfs|srtf|priority|rr> [quantum] [results.csv]
+    // java CPUScheduling <trace.csv|trace.bin> sweep <min quantum> <max quantum> [step]
+    //
+    // Processes are read lazily from an arrival-sorted trace, so memory holds only
+    // the processes currently in the system. Each result is written to the sink
+    // as soon as the process completes.
+    static void runTrace(String args[]) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: java CPUScheduling <trace.csv|trace.bin> <fcfs|srtf|priority|rr> [quantum] [results.csv]");
+            System.out.println("       java CPUScheduling <trace.csv|trace.bin> sweep <min quantum> <max quantum> [step]");
+            return;
+        }
+        String algo = args[1].toLowerCase();
+        if (algo.equals("sweep")) {
+            if (args.length < 4) {
+                System.out.println("Sweep needs the smallest and largest time quantum");
+                return;
+            }
+            ProcessTable t;
+            try (TraceReader in = TraceReader.open(Paths.get(args[0]))) {
+                t = ProcessTable.read(in);
+            }
+            sweep(t, Integer.parseInt(args[2]), Integer.parseInt(args[3]), args.length > 4 ? Integer.parseInt(args[4]) : 1);
+            return;
+        }
+        if (!Arrays.asList("fcfs", "srtf", "priority", "rr").contains(algo)) {
+            System.out.println("Unknown algorithm: " + args[1]);
+            return;
+        }
+        int tq = 0, outArg = 2;
+        if (algo.equals("rr")) {
+            if (args.length < 3) {
+                System.out.println("Round Robin needs a time quantum");
+                return;
+            }
+            tq = Integer.parseInt(args[2]);
+            outArg = 3;
+        }
+        Writer w = args.length > outArg
+                ? Files.newBufferedWriter(Paths.get(args[outArg]))
+                : new OutputStreamWriter(new FileOutputStream(FileDescriptor.out));
+
+        try (TraceReader in = TraceReader.open(Paths.get(args[0]));
+             ResultSink out = new ResultSink(w)) {
+            switch (algo) {
+                case "fcfs": streamFcfs(in, out); break;
+                case "srtf": streamSrtf(in, out); break;
+                case "priority": streamPriority(in, out); break;
+                default: streamRoundRobin(in, out, tq); break;
+            }
+            out.printSummary(algo.toUpperCase() + " (trace)");
+        }
+    }
+
+    static void streamFcfs(TraceReader in, ResultSink out) throws IOException {
+        long time = 0;
+        while (in.next()) {
+            if (time < in.at) time = in.at;
+            if (out.m.count > 0) out.m.switches++;
+            int wt = (int) (time - in.at);
+            time += in.bt;
+            out.write(in.pid, in.at, in.bt, in.priority, wt, wt + in.bt, wt);
+        }
+    }
+
+    static void streamSrtf(TraceReader in, ResultSink out) throws IOException {
+        ActiveSet s = new ActiveSet();
+        IndexHeap ready = new IndexHeap(64, (a, b) -> s.rt[a] < s.rt[b] || (s.rt[a] == s.rt[b] && s.seq[a] < s.seq[b]));
+        boolean more = in.next();
+        long time = 0;
+
+        while (more || !ready.isEmpty()) {
+            while (more && in.at <= time) {
+                ready.push(s.add(in));
+                more = in.next();
+            }
+            if (ready.isEmpty()) {
+                time = in.at;
+                continue;
+            }
+            int cur = ready.pop();
+            s.dispatch(cur, time, out);
+            long run = s.rt[cur];
+            if (more && in.at - time < run) run = in.at - time;
+            s.rt[cur] -= run;
+            time += run;
+            if (s.rt[cur] == 0) {
+                s.complete(cur, time, out);
+            } else {
+                ready.push(cur);
+            }
+        }
+    }
+
+    static void streamPriority(TraceReader in, ResultSink out) throws IOException {
+        ActiveSet s = new ActiveSet();
+        IndexHeap ready = new IndexHeap(64, (a, b) -> s.priority[a] != s.priority[b] ? s.priority[a] < s.priority[b]
+                : s.at[a] != s.at[b] ? s.at[a] < s.at[b] : s.seq[a] < s.seq[b]);
+        boolean more = in.next();
+        long time = 0;
+
+        while (more || !ready.isEmpty()) {
+            while (more && in.at <= time) {
+                ready.push(s.add(in));
+                more = in.next();
+            }
+            if (ready.isEmpty()) {
+                time = in.at;
+                continue;
+            }
+            int cur = ready.pop();
+            s.dispatch(cur, time, out);
+            time += s.bt[cur];
+            s.complete(cur, time, out);
+        }
+    }
+
+    static void streamRoundRobin(TraceReader in, ResultSink out, int tq) throws IOException {
+        ActiveSet s = new ActiveSet();
+        IndexQueue q = new IndexQueue(64);
+        boolean more = in.next();
+        long time = 0;
+
+        while (more || !q.isEmpty()) {
+            if (q.isEmpty()) {
+                // CPU idle: jump to the next arrival instead of stopping
+                if (time < in.at) time = in.at;
+                while (more && in.at <= time) {
+                    q.add(s.add(in));
+                    more = in.next();
+                }
+            }
+            int cur = q.poll();
+            s.dispatch(cur, time, out);
+            int exec = Math.min(s.rt[cur], tq);
+            s.rt[cur] -= exec;
+            time += exec;
+
+            // Add processes that have arrived
+            while (more && in.at <= time) {
+                q.add(s.add(in));
+                more = in.next();
+            }
+            if (s.rt[cur] > 0)
+                q.add(cur);
+            else
+                s.complete(cur, time, out);
+        }
+    }
+
+    // Slots for the processes currently in the system; finished slots are reused
+    static class ActiveSet {
+        int pid[] = new int[64], at[] = new int[64], bt[] = new int[64], rt[] = new int[64], priority[] = new int[64];
+        long seq[] = new long[64], firstRun[] = new long[64];
+        int free[] = new int[64];
+        int freeCount, used;
+        long count, lastSeq = -1;
+
+        int add(TraceReader r) {
+            int slot;
+            if (freeCount > 0) {
+                slot = free[--freeCount];
+            } else {
+                if (used == pid.length) grow();
+                slot = used++;
+            }
+            pid[slot] = r.pid;
+            at[slot] = r.at;
+            bt[slot] = r.bt;
+            rt[slot] = r.bt;
+            priority[slot] = r.priority;
+            seq[slot] = count++;
+            firstRun[slot] = -1;
+            return slot;
+        }
+
+        // Slots are reused, so context switches are tracked by sequence number
+        void dispatch(int slot, long time, ResultSink out) {
+            if (firstRun[slot] < 0) firstRun[slot] = time;
+            if (lastSeq != -1 && lastSeq != seq[slot]) out.m.switches++;
+            lastSeq = seq[slot];
+        }
+
+        void complete(int slot, long finish, ResultSink out) throws IOException {
+            int tat = (int) (finish - at[slot]);
+            out.write(pid[slot], at[slot], bt[slot], priority[slot], tat - bt[slot], tat, (int) (firstRun[slot] - at[slot]));
+            free[freeCount++] = slot;
+        }
+
+        void grow() {
+            int cap = pid.length * 2;
+            pid = Arrays.copyOf(pid, cap);
+            at = Arrays.copyOf(at, cap);
+            bt = Arrays.copyOf(bt, cap);
+            rt = Arrays.copyOf(rt, cap);
+            priority = Arrays.copyOf(priority, cap);
+            seq = Arrays.copyOf(seq, cap);
+            firstRun = Arrays.copyOf(firstRun, cap);
+            free = Arrays.copyOf(free, cap);
+        }
+    }
+
+    // ---------- Index Queue ----------
+    // FIFO ring buffer of indices; doubles when full, which never happens when it
+    // is sized to the number of processes that can be queued at once
+    static class IndexQueue {
+        int buf[];
+        int head, size;
+
+        IndexQueue(int capacity) {
+            buf = new int[Math.max(capacity, 1)];
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void add(int x) {
+            if (size == buf.length) {
+                int bigger[] = new int[buf.length * 2];
+                for (int i = 0; i < size; i++) bigger[i] = buf[(head + i) % buf.length];
+                buf = bigger;
+                head = 0;
+            }
+            int tail = head + size;
+            if (tail >= buf.length) tail -= buf.length;
+            buf[tail] = x;
+            size++;
+        }
+
+        int poll() {
+            int x = buf[head];
+            if (++head == buf.length) head = 0;
+            size--;
+            return x;
+        }
+
+        // Take from the tail (the end a work-stealing thief uses)
+        int pollLast() {
+            int tail = head + --size;
+            if (tail >= buf.length) tail -= buf.length;
+            return buf[tail];
+        }
+    }
+
+    // ---------- Trace Readers ----------
+    // Each call to next() loads one process into pid/at/bt/priority.
+    static abstract class TraceReader implements Closeable {
+        int pid, at, bt, priority;
+        long line;
+        int lastAt = Integer.MIN_VALUE;
+
+        abstract boolean read() throws IOException;
+
+        boolean next() throws IOException {
+            if (!read()) return false;
+            line++;
+            if (at < lastAt)
+                throw new IOException("Trace is not sorted by arrival time at record " + line);
+            lastAt = at;
+            return true;
+        }
+
+        static TraceReader open(Path path) throws IOException {
+            return path.toString().endsWith(".bin") ? new BinaryTrace(path) : new CsvTrace(path);
+        }
+    }
+
+    // Text trace: one "pid,at,bt,priority" per line. Lines that do not start with
+    // a digit or '-' (headers, comments) are skipped.
+    static class CsvTrace extends TraceReader {
+        InputStream in;
+        byte buf[] = new byte[1 << 16];
+        int pos, len;
+        int fields[] = new int[4];
+
+        CsvTrace(Path path) throws IOException {
+            in = Files.newInputStream(path);
+        }
+
+        int peek() throws IOException {
+            if (pos == len) {
+                len = in.read(buf, 0, buf.length);
+                pos = 0;
+                if (len <= 0) {
+                    len = 0;
+                    return -1;
+                }
+            }
+            return buf[pos];
+        }
+
+        boolean read() throws IOException {
+            while (true) {
+                int c = peek();
+                if (c == -1) return false;
+                if ((c >= '0' && c <= '9') || c == '-') break;
+                skipLine();
+            }
+            for (int f = 0; f < 4; f++) {
+                int c = peek();
+                while (c == ' ' || c == '\t' || c == ',') {
+                    pos++;
+                    c = peek();
+                }
+                boolean neg = c == '-';
+                if (neg) {
+                    pos++;
+                    c = peek();
+                }
+                if (c < '0' || c > '9')
+                    throw new IOException("Expected pid,at,bt,priority at record " + (line + 1));
+                int v = 0;
+                while (c >= '0' && c <= '9') {
+                    v = v * 10 + (c - '0');
+                    pos++;
+                    c = peek();
+                }
+                fields[f] = neg ? -v : v;
+            }
+            skipLine();
+            pid = fields[0];
+            at = fields[1];
+            bt = fields[2];
+            priority = fields[3];
+            return true;
+        }
+
+        void skipLine() throws IOException {
+            int c;
+            while ((c = peek()) != -1) {
+                pos++;
+                if (c == '\n') break;
+            }
+        }
+
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    // Binary trace: little-endian int32 records (pid, at, bt, priority), mapped
+    // into memory one window at a time so files larger than 2 GB work too.
+    static class BinaryTrace extends TraceReader {
+        static final int RECORD = 16;
+        static final long WINDOW = (64L << 20) / RECORD * RECORD;
+        FileChannel ch;
+        ByteBuffer map;
+        long offset, size;
+
+        BinaryTrace(Path path) throws IOException {
+            ch = FileChannel.open(path, StandardOpenOption.READ);
+            size = ch.size() / RECORD * RECORD;
+        }
+
+        boolean read() throws IOException {
+            if (map == null || !map.hasRemaining()) {
+                if (offset >= size) return false;
+                long len = Math.min(WINDOW, size - offset);
+                map = ch.map(FileChannel.MapMode.READ_ONLY, offset, len).order(ByteOrder.LITTLE_ENDIAN);
+                offset += len;
+            }
+            pid = map.getInt();
+            at = map.getInt();
+            bt = map.getInt();
+            priority = map.getInt();
+            return true;
+        }
+
+        public void close() throws IOException {
+            ch.close();
+        }
+    }
+
+    // ---------- Result Sink ----------
+    // Streams "pid,at,bt,priority,wt,tat,response" lines and keeps only the
+    // metrics counters.
+    static class ResultSink implements Closeable {
+        Writer w;
+        Metrics m = new Metrics();
+
+        ResultSink(Writer w) throws IOException {
+            this.w = w instanceof BufferedWriter ? w : new BufferedWriter(w, 1 << 16);
+            this.w.write("pid,at,bt,priority,wt,tat,response\n");
+        }
+
+        void write(int pid, int at, int bt, int priority, int wt, int tat, int response) throws IOException {
+            w.write(pid + "," + at + "," + bt + "," + priority + "," + wt + "," + tat + "," + response + "\n");
+            m.record(at, bt, wt, tat, response);
+        }
+
+        void printSummary(String algo) throws IOException {
+            w.flush();
+            System.out.println("\n" + algo + " Scheduling Result: " + m.count + " processes");
+            System.out.printf("Average Waiting Time = %.2f\n", m.avg(m.totalWT));
+            System.out.printf("Average Turnaround Time = %.2f\n", m.avg(m.totalTAT));
+            printMetrics(m);
+        }
+
+        public void close() throws IOException {
+            w.close();
         }
-        System.out.printf("Average Waiting Time = %.2f\n", totalWT / p.length);
-        System.out.printf("Average Turnaround Time = %.2f\n", totalTAT / p.length);
     }
 }
 
@@ -187,6 +1541,12 @@ Waiting Time (WT) – Time spent waiting in the ready queue.
 
 Turnaround Time (TAT) – Total time from arrival to completion (TAT = WT + BT).
 
+Response Time – Time from arrival until the process first gets the CPU.
+
+Context Switch – The CPU changing from one process to another.
+
+p50 / p99 / p99.9 – The value that 50% / 99% / 99.9% of processes stay within (tail latency).
+
 ⚙️ Algorithm
 
 🧩 1. FCFS (First Come First Serve)
@@ -235,6 +1595,31 @@ Display results.
 
 Stop.
 
+⏩ 2b. SRTF (Event-driven)
+Algorithm
+
+Start.
+
+Sort processes by Arrival Time and keep a cursor to the next arrival.
+
+Keep arrived processes in a min-heap ordered by remaining time.
+
+While all processes are not completed:
+
+    - Push every process that has arrived by the current time into the heap.
+
+    - If the heap is empty, jump current time to the next arrival.
+
+    - Else run the top process until it finishes or the next process arrives, whichever is sooner.
+
+    - If it finishes, calculate WT and TAT; otherwise push it back.
+
+Compute average WT and TAT.
+
+Display results.
+
+Stop.
+
 🧠 3. Priority Scheduling (Non-Preemptive)
 Algorithm
 
@@ -260,6 +1645,27 @@ Display results.
 
 Stop.
 
+⛰️ 3b. Priority Scheduling with a Heap (Non-Preemptive / Preemptive with Aging)
+Algorithm
+
+Start.
+
+Sort processes by Arrival Time and keep a cursor to the next arrival.
+
+Keep arrived processes in a min-heap ordered by (priority, arrival time, pid).
+
+Non-preemptive: pop the top process and run it to completion. If the heap is empty, jump to the next arrival.
+
+Preemptive: at every arrival, preempt the running process if the top of the heap has a strictly better priority.
+
+Aging: a waiting process improves by one priority level every 'aging' time units, so long waits cannot starve it.
+
+Compute average WT and TAT.
+
+Display results.
+
+Stop.
+
 🔁 4. Round Robin Scheduling
 Algorithm
 
@@ -287,6 +1693,67 @@ Compute average WT and TAT.
 
 Display results.
 
+Stop.
+
+🪜 5. Multilevel Feedback Queue (MLFQ)
+Algorithm
+
+Start.
+
+Input number of levels, time quantum of each level and priority boost interval.
+
+New processes enter the highest level (level 0).
+
+Always run a process from the highest non-empty level; an arrival at a higher level preempts it.
+
+If a process uses up the quantum of its level, move it one level down (the last level is round robin).
+
+Every boost interval, move all processes back to level 0 so long jobs are not starved.
+
+Display WT and TAT for each level.
+
+Stop.
+
+⚖️ 6. Completely Fair Scheduler (CFS)
+Algorithm
+
+Start.
+
+Treat priority as the nice value and look up its weight (nice 0 = 1024).
+
+Keep runnable processes in a heap ordered by virtual runtime (vruntime).
+
+Repeat until all processes finish:
+
+    - Run the process with the smallest vruntime for a slice = latency × weight / total weight.
+
+    - Increase its vruntime by time run × 1024 / weight, so heavier (lower nice) processes age slower.
+
+    - New arrivals start at the smallest vruntime in the system.
+
+Display WT and TAT for each nice value.
+
+Stop.
+
+🖥️ 7. Multicore (SMP) Scheduling
+Algorithm
+
+Start.
+
+Input number of cores, time quantum and queue mode (global or per-core).
+
+At every arrival or slice end:
+
+    - Queue new arrivals (global queue, or the least loaded core's queue).
+
+    - Requeue preempted processes; record WT and TAT of finished ones.
+
+    - Each idle core takes the next ready process; with work stealing an idle core with an empty queue takes one from the longest queue.
+
+    - Count a migration whenever a process runs on a different core than last time.
+
+Display per-core utilization, migrations and average WT / TAT for 1..N cores.
+
 Stop.
 
  */
\ No newline at end of file
@@ -0,0 +1,130 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+
+// Benchmark harness for the CPUScheduling engines.
+//
+//   javac CPUSchedulingBenchmark.java
+//   java CPUSchedulingBenchmark [max processes] [fcfs|srtf|priority|rr ...]
+//   java CPUSchedulingBenchmark gen <uniform|bursty|heavy> <processes> <trace.csv|trace.bin>
+//
+// Each (trace, size, algorithm) is measured by BenchmarkHarness in its own JVM;
+// srtf and priority share IndexHeap's IndexOrder call site, so in one JVM each
+// would be profiled by the other. One operation is a whole schedule.
+public class CPUSchedulingBenchmark {
+    static final int RR_QUANTUM = 4;
+    static final String TRACES[] = {"uniform", "bursty", "heavy"};
+
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0 && args[0].equals("gen")) {
+            writeTrace(generate(args[1], Integer.parseInt(args[2]), 42), Paths.get(args[3]));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("fork")) {
+            String trace = args[1];
+            CPUScheduling.ProcessTable t = generate(trace, Integer.parseInt(args[2]), 42);
+            t.arrivalOrder();
+            run(trace, t, args[3]);
+            return;
+        }
+        int max = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        List<String> algos = args.length > 1
+                ? Arrays.asList(args).subList(1, args.length)
+                : Arrays.asList("fcfs", "srtf", "priority", "rr");
+
+        System.out.println("Trace\tProcesses\tAlgorithm\t\tops/s\t\t+- err\t\tns/process\tB/op");
+        for (String trace : TRACES) {
+            for (int n = 1000; n <= max; n *= 10) {
+                for (String algo : algos) BenchmarkHarness.fork(CPUSchedulingBenchmark.class, "fork", trace, String.valueOf(n), algo);
+            }
+        }
+    }
+
+    // ---------- Trace Generators ----------
+    // uniform: evenly spread arrivals and bursts (~80% load)
+    // bursty:  groups of 100 processes arrive at the same instant
+    // heavy:   Pareto (alpha 1.5) bursts, mostly short jobs with a few huge ones
+    static CPUScheduling.ProcessTable generate(String kind, int n, long seed) {
+        Random r = new Random(seed);
+        int pid[] = new int[n], at[] = new int[n], bt[] = new int[n], priority[] = new int[n];
+        int time = 0;
+        for (int i = 0; i < n; i++) {
+            pid[i] = i + 1;
+            priority[i] = r.nextInt(10);
+            switch (kind) {
+                case "uniform":
+                    time += r.nextInt(21);
+                    bt[i] = 1 + r.nextInt(15);
+                    break;
+                case "bursty":
+                    if (i % 100 == 0) time += 1000;
+                    bt[i] = 1 + r.nextInt(15);
+                    break;
+                case "heavy":
+                    time += r.nextInt(9);
+                    bt[i] = (int) Math.min(1_000_000, Math.ceil(1 / Math.pow(1 - r.nextDouble(), 1 / 1.5)));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown trace kind: " + kind);
+            }
+            at[i] = time;
+        }
+        return new CPUScheduling.ProcessTable(pid, at, bt, priority);
+    }
+
+    // Writes a trace in either format understood by CPUScheduling's trace mode
+    static void writeTrace(CPUScheduling.ProcessTable t, Path out) throws IOException {
+        if (out.toString().endsWith(".bin")) {
+            try (FileChannel ch = FileChannel.open(out, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buf = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+                for (int i = 0; i < t.n; i++) {
+                    if (buf.remaining() < 16) {
+                        buf.flip();
+                        while (buf.hasRemaining()) ch.write(buf);
+                        buf.clear();
+                    }
+                    buf.putInt(t.pid[i]).putInt(t.at[i]).putInt(t.bt[i]).putInt(t.priority[i]);
+                }
+                buf.flip();
+                while (buf.hasRemaining()) ch.write(buf);
+            }
+        } else {
+            try (BufferedWriter w = Files.newBufferedWriter(out)) {
+                w.write("pid,at,bt,priority\n");
+                for (int i = 0; i < t.n; i++)
+                    w.write(t.pid[i] + "," + t.at[i] + "," + t.bt[i] + "," + t.priority[i] + "\n");
+            }
+        }
+    }
+
+    // ---------- Measurement ----------
+    static void run(String trace, CPUScheduling.ProcessTable shared, String algo) {
+        CPUScheduling.ProcessTable t = shared.fork();
+        BenchmarkHarness.Result r = BenchmarkHarness.measure(new BenchmarkHarness.Trial() {
+            public void reset() {
+                t.reset();
+            }
+
+            public long run() {
+                invoke(algo, t);
+                return 1;
+            }
+        });
+        System.out.printf("%s\t%d\t\t%-16s\t%.3f\t\t%.3f\t\t%.1f\t\t%.0f\n", trace, t.n, algo, r.mean, r.error,
+                1e9 / r.mean / t.n, r.bytesPerOp);
+    }
+
+    static void invoke(String algo, CPUScheduling.ProcessTable t) {
+        switch (algo) {
+            case "fcfs": CPUScheduling.fcfs(t); break;
+            case "srtf": CPUScheduling.srtf(t); break;
+            case "priority": CPUScheduling.priority(t); break;
+            case "rr": CPUScheduling.roundRobin(t, RR_QUANTUM); break;
+            default: throw new IllegalArgumentException("Unknown algorithm: " + algo);
+        }
+    }
+}
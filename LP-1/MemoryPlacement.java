@@ -1,7 +1,13 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.*;
 
 public class MemoryPlacement {
     public static void main(String[] args) {
+        if(args.length > 0){
+            arenaBenchmark(args);
+            return;
+        }
         Scanner sc = new Scanner(System.in);
 
         System.out.print("Enter number of memory blocks: ");
@@ -20,7 +26,7 @@ public class MemoryPlacement {
             processSize[i] = sc.nextInt();
         }
 
-        System.out.println("\n1. First Fit\n2. Best Fit\n3. Worst Fit\n4. Next Fit");
+        System.out.println("\n1. First Fit\n2. Best Fit\n3. Worst Fit\n4. Next Fit\n5. Dynamic Allocate/Free (all strategies, buddy and segregated fit)");
         System.out.print("Choose strategy: ");
         int choice = sc.nextInt();
 
@@ -29,86 +35,923 @@ public class MemoryPlacement {
             case 2: bestFit(blockSize.clone(), processSize); break;
             case 3: worstFit(blockSize.clone(), processSize); break;
             case 4: nextFit(blockSize.clone(), processSize); break;
+            case 5:
+                System.out.print("Enter total memory size: ");
+                int memory = sc.nextInt();
+                System.out.print("Enter number of steps: ");
+                int steps = sc.nextInt();
+                System.out.print("Enter maximum process lifetime (steps): ");
+                int maxLife = sc.nextInt();
+                System.out.print("Print every N steps: ");
+                int every = sc.nextInt();
+                // One arrival per step, sizes taken from the process list in turn
+                Random r = new Random(42);
+                int sizes[] = new int[steps], life[] = new int[steps];
+                for(int t=0; t<steps; t++){
+                    sizes[t] = processSize[t % Math.max(np, 1)];
+                    life[t] = 1 + r.nextInt(Math.max(maxLife, 1));
+                }
+                for(int strategy=FIRST_FIT; strategy<=SEGREGATED_FIT; strategy++){
+                    dynamic(strategy, memory, sizes, life, every);
+                }
+                break;
             default: System.out.println("Invalid choice!");
         }
     }
 
     static void firstFit(int blockSize[], int processSize[]){
+        printAllocation(firstFitAllocation(blockSize, processSize), processSize);
+    }
+
+    // Leftmost block that fits: a max segment tree over block sizes answers it
+    // in O(log blocks) instead of a scan from block 0.
+    static int[] firstFitAllocation(int blockSize[], int processSize[]){
         int allocation[] = new int[processSize.length];
         Arrays.fill(allocation, -1);
+        MaxSegmentTree tree = new MaxSegmentTree(blockSize);
 
         for(int i=0; i<processSize.length; i++){
-            for(int j=0; j<blockSize.length; j++){
-                if(blockSize[j] >= processSize[i]){
-                    allocation[i] = j;
-                    blockSize[j] -= processSize[i];
-                    break;
-                }
+            int j = tree.leftmost(0, processSize[i]);
+            if(j != -1){
+                allocation[i] = j;
+                blockSize[j] -= processSize[i];
+                tree.set(j, blockSize[j]);
             }
         }
-        printAllocation(allocation, processSize);
+        return allocation;
     }
 
     static void bestFit(int blockSize[], int processSize[]){
+        printAllocation(bestFitAllocation(blockSize, processSize), processSize);
+    }
+
+    // Smallest block that fits, lowest index among equal sizes. Blocks sit in a
+    // TreeSet of (size << 32 | index), so ceiling(size << 32) is the answer.
+    static int[] bestFitAllocation(int blockSize[], int processSize[]){
         int allocation[] = new int[processSize.length];
         Arrays.fill(allocation, -1);
+        TreeSet<Long> bySize = new TreeSet<>();
+        for(int j=0; j<blockSize.length; j++){
+            bySize.add(pack(blockSize[j], j));
+        }
 
         for(int i=0; i<processSize.length; i++){
-            int bestIdx = -1;
-            for(int j=0; j<blockSize.length; j++){
-                if(blockSize[j] >= processSize[i]){
-                    if(bestIdx == -1 || blockSize[j] < blockSize[bestIdx]){
-                        bestIdx = j;
-                    }
-                }
-            }
-            if(bestIdx != -1){
+            Long best = bySize.ceiling(pack(processSize[i], 0));
+            if(best != null){
+                int bestIdx = (int) (long) best;
                 allocation[i] = bestIdx;
+                bySize.remove(best);
                 blockSize[bestIdx] -= processSize[i];
+                bySize.add(pack(blockSize[bestIdx], bestIdx));
             }
         }
-        printAllocation(allocation, processSize);
+        return allocation;
     }
 
     static void worstFit(int blockSize[], int processSize[]){
+        printAllocation(worstFitAllocation(blockSize, processSize), processSize);
+    }
+
+    // Largest block, lowest index among equal sizes. A max-heap of
+    // (size << 32 | ~index) keeps it on top; only the top ever shrinks.
+    static int[] worstFitAllocation(int blockSize[], int processSize[]){
         int allocation[] = new int[processSize.length];
         Arrays.fill(allocation, -1);
+        long heap[] = new long[blockSize.length];
+        for(int j=0; j<blockSize.length; j++){
+            heap[j] = pack(blockSize[j], ~j);
+        }
+        for(int k=heap.length/2-1; k>=0; k--){
+            siftDown(heap, k);
+        }
 
         for(int i=0; i<processSize.length; i++){
-            int worstIdx = -1;
-            for(int j=0; j<blockSize.length; j++){
-                if(blockSize[j] >= processSize[i]){
-                    if(worstIdx == -1 || blockSize[j] > blockSize[worstIdx]){
-                        worstIdx = j;
-                    }
-                }
-            }
-            if(worstIdx != -1){
-                allocation[i] = worstIdx;
-                blockSize[worstIdx] -= processSize[i];
-            }
+            if(heap.length == 0 || blockSize[~(int) heap[0]] < processSize[i]) continue;
+            int worstIdx = ~(int) heap[0];
+            allocation[i] = worstIdx;
+            blockSize[worstIdx] -= processSize[i];
+            heap[0] = pack(blockSize[worstIdx], ~worstIdx);
+            siftDown(heap, 0);
         }
-        printAllocation(allocation, processSize);
+        return allocation;
     }
 
     static void nextFit(int blockSize[], int processSize[]){
+        printAllocation(nextFitAllocation(blockSize, processSize), processSize);
+    }
+
+    // First block that fits at or after the last allocated one, wrapping round
+    // to block 0: two leftmost() queries on the same segment tree as firstFit.
+    static int[] nextFitAllocation(int blockSize[], int processSize[]){
         int allocation[] = new int[processSize.length];
         Arrays.fill(allocation, -1);
+        MaxSegmentTree tree = new MaxSegmentTree(blockSize);
         int j = 0;
 
         for(int i=0; i<processSize.length; i++){
-            int count = 0;
-            while(count < blockSize.length){
-                if(blockSize[j] >= processSize[i]){
-                    allocation[i] = j;
-                    blockSize[j] -= processSize[i];
-                    break;
+            int found = tree.leftmost(j, processSize[i]);
+            if(found == -1) found = tree.leftmost(0, processSize[i]);
+            if(found != -1){
+                j = found;
+                allocation[i] = j;
+                blockSize[j] -= processSize[i];
+                tree.set(j, blockSize[j]);
+            }
+        }
+        return allocation;
+    }
+
+    // Orders by size, then by the low 32 bits (index) read as unsigned
+    static long pack(int size, int index){
+        return (long) size << 32 | (index & 0xFFFFFFFFL);
+    }
+
+    static void siftDown(long heap[], int k){
+        long x = heap[k];
+        while(2*k+1 < heap.length){
+            int c = 2*k+1;
+            if(c+1 < heap.length && heap[c+1] > heap[c]) c++;
+            if(heap[c] <= x) break;
+            heap[k] = heap[c];
+            k = c;
+        }
+        heap[k] = x;
+    }
+
+    // Max segment tree over block sizes; padding leaves never fit
+    static class MaxSegmentTree {
+        final int max[];
+        final int cap;
+
+        MaxSegmentTree(int size[]){
+            cap = Integer.highestOneBit(Math.max(size.length, 1) * 2 - 1);
+            max = new int[2*cap];
+            Arrays.fill(max, cap, 2*cap, Integer.MIN_VALUE);
+            System.arraycopy(size, 0, max, cap, size.length);
+            for(int k=cap-1; k>=1; k--){
+                max[k] = Math.max(max[2*k], max[2*k+1]);
+            }
+        }
+
+        void set(int i, int value){
+            int k = cap + i;
+            max[k] = value;
+            for(k>>=1; k>=1; k>>=1){
+                max[k] = Math.max(max[2*k], max[2*k+1]);
+            }
+        }
+
+        // Lowest index >= from whose size is >= need, or -1
+        int leftmost(int from, int need){
+            return leftmost(1, 0, cap-1, from, need);
+        }
+
+        int leftmost(int k, int lo, int hi, int from, int need){
+            if(hi < from || max[k] < need) return -1;
+            if(lo == hi) return lo;
+            int mid = (lo + hi) >>> 1;
+            int found = leftmost(2*k, lo, mid, from, need);
+            return found != -1 ? found : leftmost(2*k+1, mid+1, hi, from, need);
+        }
+    }
+
+    // ---------- Dynamic Allocate / Free ----------
+    // Every allocator manages one range of addresses [0, memory) and is driven
+    // through the same calls, so they can replay the same event stream.
+    static final int FIRST_FIT = 1, BEST_FIT = 2, WORST_FIT = 3, NEXT_FIT = 4, BUDDY = 5, SEGREGATED_FIT = 6;
+    static final String STRATEGIES[] = {"", "First Fit", "Best Fit", "Worst Fit", "Next Fit", "Buddy", "Segregated Fit"};
+
+    interface Allocator {
+        int allocate(int size);             // start address, or -1 if it does not fit
+        void release(int start, int size);  // size as passed to allocate
+        int granted(int size);              // space a request of this size really takes
+        long free();
+        int largestFree();
+        int holes();
+    }
+
+    static Allocator newAllocator(int strategy, int memory){
+        switch(strategy){
+            case BUDDY: return new BuddyAllocator(memory);
+            case SEGREGATED_FIT: return new SlabAllocator(memory);
+            default: return new FreeList(memory, strategy);
+        }
+    }
+
+    // Holes are kept in address order (start -> size), so a freed block merges
+    // with the hole ending at its start and the hole starting at its end in
+    // O(log holes). A second index orders holes by (size, start) for best fit,
+    // worst fit and the largest hole.
+    static class FreeList implements Allocator {
+        final TreeMap<Integer, Integer> holes = new TreeMap<>();
+        final TreeSet<Long> bySize = new TreeSet<>();
+        final int strategy;
+        long free;
+        int rover;      // next fit resumes at the end of the last allocation
+
+        FreeList(int size, int strategy){
+            this.strategy = strategy;
+            if(size > 0) addHole(0, size);
+        }
+
+        void addHole(int start, int size){
+            holes.put(start, size);
+            bySize.add(pack(size, start));
+            free += size;
+        }
+
+        void removeHole(int start, int size){
+            holes.remove(start);
+            bySize.remove(pack(size, start));
+            free -= size;
+        }
+
+        public int allocate(int size){
+            int start = find(size);
+            if(start == -1) return -1;
+            int hole = holes.get(start);
+            removeHole(start, hole);
+            if(hole > size) addHole(start + size, hole - size);
+            rover = start + size;
+            return start;
+        }
+
+        int find(int size){
+            switch(strategy){
+                case FIRST_FIT:
+                    for(Map.Entry<Integer, Integer> e : holes.entrySet()){
+                        if(e.getValue() >= size) return e.getKey();
+                    }
+                    return -1;
+                case BEST_FIT: {
+                    Long best = bySize.ceiling(pack(size, 0));
+                    return best == null ? -1 : (int) (long) best;
+                }
+                case WORST_FIT: {
+                    if(bySize.isEmpty() || largestFree() < size) return -1;
+                    return (int) (long) bySize.ceiling(pack(largestFree(), 0));   // lowest address among the largest
+                }
+                default: {
+                    Map.Entry<Integer, Integer> at = holes.floorEntry(rover);
+                    int from = at != null && at.getKey() + at.getValue() > rover ? at.getKey() : rover;
+                    for(Map.Entry<Integer, Integer> e : holes.tailMap(from, true).entrySet()){
+                        if(e.getValue() >= size) return e.getKey();
+                    }
+                    for(Map.Entry<Integer, Integer> e : holes.headMap(from, false).entrySet()){
+                        if(e.getValue() >= size) return e.getKey();
+                    }
+                    return -1;
+                }
+            }
+        }
+
+        public void release(int start, int size){
+            Map.Entry<Integer, Integer> prev = holes.lowerEntry(start);
+            if(prev != null && prev.getKey() + prev.getValue() == start){
+                removeHole(prev.getKey(), prev.getValue());
+                start = prev.getKey();
+                size += prev.getValue();
+            }
+            Integer next = holes.get(start + size);
+            if(next != null){
+                removeHole(start + size, next);
+                size += next;
+            }
+            addHole(start, size);
+        }
+
+        public int granted(int size){
+            return size;
+        }
+
+        public long free(){
+            return free;
+        }
+
+        public int largestFree(){
+            return bySize.isEmpty() ? 0 : (int) (bySize.last() >>> 32);
+        }
+
+        public int holes(){
+            return holes.size();
+        }
+    }
+
+    // Binary buddy system. Blocks have power-of-two sizes and are aligned to
+    // their size; free[k] has bit i set when the block at address i << k of
+    // order k is free. A request is rounded up to a power of two, taken from
+    // the smallest free order and split in halves down to the right order;
+    // a freed block merges with its buddy (address ^ size) while that is free.
+    // Memory that is not a power of two starts as several aligned top blocks.
+    //
+    // The bitmaps only answer the buddy check. Finding a free block of order k
+    // uses stack[k], the block indices in the order they were freed: a block
+    // that was merged away stays on the stack and is skipped when popped, so
+    // allocation is O(log memory) amortized instead of a bitmap scan. A full
+    // stack first drops its stale entries, which keeps it within twice the
+    // number of free blocks.
+    static class BuddyAllocator implements Allocator {
+        final long free[][];
+        final int count[], stack[][], top[];
+        final int maxOrder;
+        long freeUnits;
+
+        BuddyAllocator(int memory){
+            maxOrder = memory > 0 ? 31 - Integer.numberOfLeadingZeros(memory) : 0;
+            free = new long[maxOrder+1][];
+            count = new int[maxOrder+1];
+            stack = new int[maxOrder+1][];
+            top = new int[maxOrder+1];
+            for(int k=0; k<=maxOrder; k++){
+                free[k] = new long[((memory >> k) >> 6) + 1];
+                stack[k] = new int[4];
+            }
+            int addr = 0;
+            for(int k=maxOrder; k>=0; k--){
+                if((memory >> k & 1) != 0){
+                    mark(addr, k);
+                    addr += 1 << k;
+                }
+            }
+        }
+
+        static int orderOf(int size){
+            return size <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(size - 1);
+        }
+
+        void mark(int addr, int k){
+            int i = addr >> k;
+            free[k][i >> 6] |= 1L << i;
+            count[k]++;
+            freeUnits += 1L << k;
+            if(top[k] == stack[k].length) compact(k);
+            stack[k][top[k]++] = i;
+        }
+
+        boolean isFree(int k, int i){
+            return (free[k][i >> 6] & 1L << i) != 0;
+        }
+
+        // Most recently freed block of order k that is still free
+        int pop(int k){
+            while(true){
+                int i = stack[k][--top[k]];
+                if(isFree(k, i)) return i;
+            }
+        }
+
+        // Keeps one entry per free block (bits are cleared while filtering to
+        // drop duplicates), then grows the stack if it is still half full
+        void compact(int k){
+            int s[] = stack[k], n = 0;
+            for(int j=0; j<top[k]; j++){
+                if(isFree(k, s[j])){
+                    free[k][s[j] >> 6] &= ~(1L << s[j]);
+                    s[n++] = s[j];
                 }
-                j = (j + 1) % blockSize.length;
-                count++;
             }
+            for(int j=0; j<n; j++) free[k][s[j] >> 6] |= 1L << s[j];
+            top[k] = n;
+            if(n * 2 >= s.length) stack[k] = Arrays.copyOf(s, s.length * 2);
+        }
+
+        void unmark(int addr, int k){
+            int i = addr >> k;
+            free[k][i >> 6] &= ~(1L << i);
+            count[k]--;
+            freeUnits -= 1L << k;
+        }
+
+        public int allocate(int size){
+            int k = orderOf(size), j = k;
+            while(j <= maxOrder && count[j] == 0) j++;
+            if(j > maxOrder) return -1;
+            int addr = pop(j) << j;
+            unmark(addr, j);
+            while(j > k){
+                j--;
+                mark(addr + (1 << j), j);   // upper half becomes a free buddy
+            }
+            return addr;
+        }
+
+        public void release(int addr, int size){
+            int k = orderOf(size);
+            while(k < maxOrder){
+                int buddy = addr ^ (1 << k);
+                if(!isFree(k, buddy >> k)) break;
+                unmark(buddy, k);
+                addr = Math.min(addr, buddy);
+                k++;
+            }
+            mark(addr, k);
+        }
+
+        public int granted(int size){
+            return 1 << orderOf(size);
+        }
+
+        public long free(){
+            return freeUnits;
+        }
+
+        public int largestFree(){
+            for(int k=maxOrder; k>=0; k--){
+                if(count[k] > 0) return 1 << k;
+            }
+            return 0;
+        }
+
+        public int holes(){
+            int n = 0;
+            for(int c : count) n += c;
+            return n;
+        }
+    }
+
+    // Segregated fit, slab style. Small requests are rounded up to a power-of-two
+    // size class; each class carves slabs of SLAB_OBJECTS objects out of a
+    // first-fit free list and keeps the slabs that still have free objects.
+    // A slab whose objects are all free goes back to the free list. Requests
+    // too large for any class go to the free list directly.
+    static class SlabAllocator implements Allocator {
+        static final int SLAB_OBJECTS = 8;
+        final FreeList backing;
+        final int classes;
+        final List<ArrayDeque<Slab>> partial = new ArrayList<>();
+        final TreeMap<Integer, Slab> slabs = new TreeMap<>();
+        long slabFree;
+
+        static class Slab {
+            final int start;
+            int used;
+            long freeMask = (1L << SLAB_OBJECTS) - 1;
+
+            Slab(int start){
+                this.start = start;
+            }
+        }
+
+        SlabAllocator(int memory){
+            backing = new FreeList(memory, FIRST_FIT);
+            int c = 0;
+            while(c < 16 && (SLAB_OBJECTS << c) <= memory / 8) c++;    // a slab is at most 1/8 of memory
+            classes = c;
+            for(int k=0; k<classes; k++) partial.add(new ArrayDeque<>());
+        }
+
+        public int allocate(int size){
+            int c = BuddyAllocator.orderOf(size);
+            if(c >= classes) return backing.allocate(size);
+            ArrayDeque<Slab> list = partial.get(c);
+            if(list.isEmpty()){
+                int start = backing.allocate(SLAB_OBJECTS << c);
+                if(start == -1) return -1;
+                Slab slab = new Slab(start);
+                slabs.put(start, slab);
+                list.add(slab);
+                slabFree += SLAB_OBJECTS << c;
+            }
+            Slab slab = list.peek();
+            int i = Long.numberOfTrailingZeros(slab.freeMask);
+            slab.freeMask &= ~(1L << i);
+            slab.used++;
+            slabFree -= 1 << c;
+            if(slab.freeMask == 0) list.poll();
+            return slab.start + (i << c);
+        }
+
+        public void release(int start, int size){
+            int c = BuddyAllocator.orderOf(size);
+            if(c >= classes){
+                backing.release(start, size);
+                return;
+            }
+            Slab slab = slabs.floorEntry(start).getValue();
+            boolean wasFull = slab.freeMask == 0;
+            slab.freeMask |= 1L << ((start - slab.start) >> c);
+            slab.used--;
+            slabFree += 1 << c;
+            if(slab.used == 0){
+                if(!wasFull) partial.get(c).remove(slab);
+                slabs.remove(slab.start);
+                slabFree -= SLAB_OBJECTS << c;
+                backing.release(slab.start, SLAB_OBJECTS << c);
+            } else if(wasFull){
+                partial.get(c).add(slab);
+            }
+        }
+
+        public int granted(int size){
+            int c = BuddyAllocator.orderOf(size);
+            return c < classes ? 1 << c : size;
+        }
+
+        public long free(){
+            return backing.free() + slabFree;
+        }
+
+        // Free objects inside slabs only serve their own class
+        public int largestFree(){
+            int largest = backing.largestFree();
+            for(int c=classes-1; c>=0; c--){
+                if(!partial.get(c).isEmpty()) return Math.max(largest, 1 << c);
+            }
+            return largest;
+        }
+
+        public int holes(){
+            int n = backing.holes();
+            for(ArrayDeque<Slab> list : partial) n += list.size();
+            return n;
+        }
+    }
+
+    // At each step the processes whose lifetime ends are freed, then process t
+    // (sizes[t], living life[t] steps) is allocated; a failed allocation is
+    // dropped. External fragmentation = 1 - largest free block / total free
+    // memory; internal fragmentation = space granted beyond what was requested,
+    // as a share of all granted space.
+    static void dynamic(int strategy, int memory, int sizes[], int life[], int every){
+        Allocator a = newAllocator(strategy, memory);
+        PriorityQueue<Long> ends = new PriorityQueue<>();      // (end step << 32 | process)
+        int start[] = new int[sizes.length];
+        long failures = 0, requested = 0, granted = 0;
+        double sumFrag = 0, sumInternal = 0, sumLargest = 0;
+
+        System.out.println("\n" + STRATEGIES[strategy] + " (dynamic):");
+        System.out.println("Step\tUsed\tHoles\tLargest Hole\tExt. Frag %\tInt. Frag %\tFailure %");
+        for(int t=0; t<sizes.length; t++){
+            while(!ends.isEmpty() && (ends.peek() >>> 32) <= t){
+                int p = (int) (long) ends.poll();
+                a.release(start[p], sizes[p]);
+                requested -= sizes[p];
+                granted -= a.granted(sizes[p]);
+            }
+            start[t] = a.allocate(sizes[t]);
+            if(start[t] == -1){
+                failures++;
+            } else {
+                ends.add((long) (t + life[t]) << 32 | t);
+                requested += sizes[t];
+                granted += a.granted(sizes[t]);
+            }
+
+            int largest = a.largestFree();
+            long free = a.free();
+            double frag = free == 0 ? 0 : 100.0 * (1 - (double) largest / free);
+            double internal = granted == 0 ? 0 : 100.0 * (granted - requested) / granted;
+            sumFrag += frag;
+            sumInternal += internal;
+            sumLargest += largest;
+            if(every > 0 && (t+1) % every == 0){
+                System.out.printf("%d\t%d\t%d\t%d\t\t%.2f\t\t%.2f\t\t%.2f\n", t+1, memory - free, a.holes(), largest, frag,
+                        internal, 100.0 * failures / (t+1));
+            }
+        }
+        int n = Math.max(sizes.length, 1);
+        System.out.printf("Average Ext. Fragmentation = %.2f%%, Average Int. Fragmentation = %.2f%%, Average Largest Hole = %.1f, Failure Rate = %.2f%%\n",
+                sumFrag / n, sumInternal / n, sumLargest / n, 100.0 * failures / n);
+    }
+
+    // ---------- Off-heap Arena ----------
+    // The strategies on real memory: an arena of direct ByteBuffers (at most
+    // 1 GB each, so arenas can exceed the 2 GB limit of one buffer) with all
+    // allocator metadata written into the arena itself. Blocks never span two
+    // regions. An address is (region << 30 | offset of the payload).
+    static final int REGION_BITS = 30;
+    static final int REGION_MASK = (1 << REGION_BITS) - 1;
+
+    static class Arena {
+        final ByteBuffer regions[];
+
+        Arena(long bytes){
+            regions = new ByteBuffer[(int) ((bytes + REGION_MASK) >>> REGION_BITS)];
+            for(int r=0; r<regions.length; r++){
+                long size = Math.min(1L << REGION_BITS, bytes - ((long) r << REGION_BITS)) & ~7L;
+                regions[r] = ByteBuffer.allocateDirect((int) size).order(ByteOrder.nativeOrder());
+            }
+        }
+
+        static long address(int region, int offset){
+            return (long) region << REGION_BITS | offset;
+        }
+    }
+
+    interface ArenaAllocator {
+        long allocate(int size);    // payload address, or -1
+        void free(long address);
+        long visited();             // free blocks inspected by all searches so far
+    }
+
+    // Boundary tags: every block starts with a 4-byte header and ends with a
+    // 4-byte footer, both holding (block size | 1 if allocated), so free() finds
+    // both neighbours in O(1) and merges with the free ones. Free blocks are
+    // linked through their payload (next at +4, prev at +8) into one LIFO list
+    // per region. Blocks start 4 bytes past an 8-byte boundary so payloads are
+    // 8-byte aligned; an allocated tag at each end of a region stops merging.
+    static class TagHeap implements ArenaAllocator {
+        static final int MIN_BLOCK = 16;
+        final Arena arena;
+        final int strategy;
+        final int head[], rover[];
+        int region;         // next fit: region of the last allocation
+        long visited;
+
+        TagHeap(Arena arena, int strategy){
+            this.arena = arena;
+            this.strategy = strategy;
+            head = new int[arena.regions.length];
+            rover = new int[arena.regions.length];
+            for(int r=0; r<head.length; r++){
+                ByteBuffer b = arena.regions[r];
+                int end = b.capacity();
+                b.putInt(0, 1);                     // prologue footer
+                b.putInt(end - 4, 1);               // epilogue header
+                head[r] = -1;
+                rover[r] = -1;
+                if(end - 8 >= MIN_BLOCK){
+                    tag(b, 4, end - 8, false);
+                    push(r, 4);
+                }
+            }
+        }
+
+        static void tag(ByteBuffer b, int block, int size, boolean allocated){
+            int word = size | (allocated ? 1 : 0);
+            b.putInt(block, word);
+            b.putInt(block + size - 4, word);
+        }
+
+        void push(int r, int block){
+            ByteBuffer b = arena.regions[r];
+            b.putInt(block + 4, head[r]);
+            b.putInt(block + 8, -1);
+            if(head[r] != -1) b.putInt(head[r] + 8, block);
+            head[r] = block;
+        }
+
+        void unlink(int r, int block){
+            ByteBuffer b = arena.regions[r];
+            int next = b.getInt(block + 4), prev = b.getInt(block + 8);
+            if(prev != -1) b.putInt(prev + 4, next);
+            else head[r] = next;
+            if(next != -1) b.putInt(next + 8, prev);
+            if(rover[r] == block) rover[r] = next;
+        }
+
+        public long allocate(int size){
+            int need = Math.max(MIN_BLOCK, (size + 8 + 7) & ~7);
+            int n = head.length;
+            if(strategy == BEST_FIT){
+                int bestRegion = -1, best = -1, bestSize = Integer.MAX_VALUE;
+                for(int r=0; r<n && bestSize != need; r++){
+                    ByteBuffer b = arena.regions[r];
+                    for(int blk=head[r]; blk!=-1; blk=b.getInt(blk + 4)){
+                        visited++;
+                        int bs = b.getInt(blk);
+                        if(bs >= need && bs < bestSize){
+                            bestRegion = r;
+                            best = blk;
+                            bestSize = bs;
+                            if(bs == need) break;
+                        }
+                    }
+                }
+                return best == -1 ? -1 : place(bestRegion, best, need);
+            }
+            int first = strategy == NEXT_FIT ? region : 0;
+            for(int k=0; k<n; k++){
+                int r = (first + k) % n;
+                int blk = find(r, need);
+                if(blk != -1){
+                    region = r;
+                    return place(r, blk, need);
+                }
+            }
+            return -1;
+        }
+
+        // First fit walks the list from its head; next fit from the rover,
+        // wrapping round to the head
+        int find(int r, int need){
+            ByteBuffer b = arena.regions[r];
+            int start = strategy == NEXT_FIT && rover[r] != -1 ? rover[r] : head[r];
+            for(int blk=start; blk!=-1; blk=b.getInt(blk + 4)){
+                visited++;
+                if(b.getInt(blk) >= need) return blk;
+            }
+            if(start == head[r]) return -1;
+            for(int blk=head[r]; blk!=start; blk=b.getInt(blk + 4)){
+                visited++;
+                if(b.getInt(blk) >= need) return blk;
+            }
+            return -1;
+        }
+
+        long place(int r, int blk, int need){
+            ByteBuffer b = arena.regions[r];
+            int size = b.getInt(blk);
+            int next = b.getInt(blk + 4);
+            unlink(r, blk);
+            if(size - need >= MIN_BLOCK){
+                tag(b, blk, need, true);
+                tag(b, blk + need, size - need, false);
+                push(r, blk + need);
+                rover[r] = blk + need;
+            } else {
+                tag(b, blk, size, true);
+                rover[r] = next;
+            }
+            return Arena.address(r, blk + 4);
+        }
+
+        public void free(long address){
+            int r = (int) (address >>> REGION_BITS);
+            ByteBuffer b = arena.regions[r];
+            int blk = (int) (address & REGION_MASK) - 4;
+            int size = b.getInt(blk) & ~7;
+            int prevTag = b.getInt(blk - 4);
+            if((prevTag & 1) == 0){
+                blk -= prevTag;
+                unlink(r, blk);
+                size += prevTag;
+            }
+            int nextTag = b.getInt(blk + size);
+            if((nextTag & 1) == 0){
+                unlink(r, blk + size);
+                size += nextTag;
+            }
+            tag(b, blk, size, false);
+            push(r, blk);
+        }
+
+        public long visited(){
+            return visited;
+        }
+    }
+
+    // Buddy system in the arena. Each block begins with an 8-byte header
+    // (order | FREE); free blocks of each order are linked through the block
+    // (next at +4, prev at +8 ... kept after the header word). The buddy of a
+    // block always starts with a genuine header, because the parent block was
+    // split, so reading it is enough to decide whether to merge.
+    static class ArenaBuddy implements ArenaAllocator {
+        static final int MIN_ORDER = 4, FREE = 1 << 8;
+        final Arena arena;
+        final int head[][];
+        final int limit[], maxOrder[];
+        long visited;
+
+        ArenaBuddy(Arena arena){
+            this.arena = arena;
+            int n = arena.regions.length;
+            head = new int[n][REGION_BITS + 1];
+            limit = new int[n];
+            maxOrder = new int[n];
+            for(int r=0; r<n; r++){
+                Arrays.fill(head[r], -1);
+                int size = arena.regions[r].capacity();
+                limit[r] = size;
+                maxOrder[r] = 31 - Integer.numberOfLeadingZeros(Math.max(size, 1));
+                int addr = 0;
+                for(int k=maxOrder[r]; k>=MIN_ORDER; k--){
+                    if((size >> k & 1) != 0){
+                        push(r, addr, k);
+                        addr += 1 << k;
+                    }
+                }
+            }
+        }
+
+        void push(int r, int blk, int k){
+            ByteBuffer b = arena.regions[r];
+            b.putInt(blk, k | FREE);
+            b.putInt(blk + 4, head[r][k]);
+            b.putInt(blk + 8, -1);
+            if(head[r][k] != -1) b.putInt(head[r][k] + 8, blk);
+            head[r][k] = blk;
+        }
+
+        void unlink(int r, int blk, int k){
+            ByteBuffer b = arena.regions[r];
+            int next = b.getInt(blk + 4), prev = b.getInt(blk + 8);
+            if(prev != -1) b.putInt(prev + 4, next);
+            else head[r][k] = next;
+            if(next != -1) b.putInt(next + 8, prev);
+        }
+
+        public long allocate(int size){
+            int k = Math.max(MIN_ORDER, BuddyAllocator.orderOf(size + 8));
+            for(int r=0; r<head.length; r++){
+                int j = k;
+                while(j <= maxOrder[r] && head[r][j] == -1){
+                    j++;
+                    visited++;
+                }
+                if(j > maxOrder[r]) continue;
+                int blk = head[r][j];
+                unlink(r, blk, j);
+                while(j > k){
+                    j--;
+                    push(r, blk + (1 << j), j);
+                }
+                arena.regions[r].putInt(blk, k);
+                return Arena.address(r, blk + 8);
+            }
+            return -1;
+        }
+
+        public void free(long address){
+            int r = (int) (address >>> REGION_BITS);
+            ByteBuffer b = arena.regions[r];
+            int blk = (int) (address & REGION_MASK) - 8;
+            int k = b.getInt(blk);
+            while(k < maxOrder[r]){
+                int buddy = blk ^ (1 << k);
+                if(buddy + (1 << k) > limit[r] || b.getInt(buddy) != (k | FREE)) break;
+                unlink(r, buddy, k);
+                blk = Math.min(blk, buddy);
+                k++;
+            }
+            push(r, blk, k);
+        }
+
+        public long visited(){
+            return visited;
+        }
+    }
+
+    //   java MemoryPlacement arena <first|best|next|buddy|all> <arena MB> <operations> [max request bytes]
+    // Random allocate / free mix with request sizes uniform in [8, max], held
+    // near half the arena in use (55% allocations below that, 45% above); every
+    // block's first 8 bytes are written, as a program would.
+    // Each call is timed separately; the cost of the timer itself is measured
+    // and subtracted. Arenas over the default direct-memory limit need
+    // -XX:MaxDirectMemorySize.
+    static void arenaBenchmark(String args[]){
+        if(args.length < 4 || !args[0].equals("arena")){
+            System.out.println("Usage: java MemoryPlacement arena <first|best|next|buddy|all> <arena MB> <operations> [max request bytes]");
+            return;
+        }
+        long bytes = Long.parseLong(args[2]) << 20;
+        int ops = Integer.parseInt(args[3]);
+        int maxSize = args.length > 4 ? Integer.parseInt(args[4]) : 4096;
+        String names[] = args[1].equals("all") ? new String[]{"first", "best", "next", "buddy"} : new String[]{args[1]};
+
+        long overhead = Long.MAX_VALUE;
+        for(int k=0; k<1000; k++){
+            long t0 = System.nanoTime();
+            overhead = Math.min(overhead, System.nanoTime() - t0);
+        }
+        System.out.println("Strategy\tAllocs\t\tFrees\t\tFailed\tns/alloc\tns/free\t\tBlocks visited/alloc");
+        for(String name : names){
+            Arena arena = new Arena(bytes);
+            ArenaAllocator a;
+            switch(name){
+                case "first": a = new TagHeap(arena, FIRST_FIT); break;
+                case "best": a = new TagHeap(arena, BEST_FIT); break;
+                case "next": a = new TagHeap(arena, NEXT_FIT); break;
+                case "buddy": a = new ArenaBuddy(arena); break;
+                default:
+                    System.out.println("Unknown strategy: " + name);
+                    return;
+            }
+            Random r = new Random(42);
+            long live[] = new long[ops];
+            int liveSize[] = new int[ops];
+            int n = 0;
+            long allocs = 0, frees = 0, failed = 0, allocNs = 0, freeNs = 0, inUse = 0;
+            for(int op=0; op<ops; op++){
+                if(n == 0 || r.nextInt(100) < (inUse < bytes / 2 ? 55 : 45)){
+                    int size = 8 + r.nextInt(Math.max(maxSize - 7, 1));
+                    long t0 = System.nanoTime();
+                    long addr = a.allocate(size);
+                    allocNs += System.nanoTime() - t0 - overhead;
+                    allocs++;
+                    if(addr == -1){
+                        failed++;
+                        continue;
+                    }
+                    arena.regions[(int) (addr >>> REGION_BITS)].putLong((int) (addr & REGION_MASK), addr);
+                    inUse += size;
+                    liveSize[n] = size;
+                    live[n++] = addr;
+                } else {
+                    int k = r.nextInt(n);
+                    long addr = live[k];
+                    inUse -= liveSize[k];
+                    live[k] = live[--n];
+                    liveSize[k] = liveSize[n];
+                    long t0 = System.nanoTime();
+                    a.free(addr);
+                    freeNs += System.nanoTime() - t0 - overhead;
+                    frees++;
+                }
+            }
+            System.out.printf("%s\t\t%d\t\t%d\t\t%d\t%.1f\t\t%.1f\t\t%.2f\n", name, allocs, frees, failed,
+                    (double) allocNs / Math.max(allocs, 1), (double) freeNs / Math.max(frees, 1), (double) a.visited() / Math.max(allocs, 1));
         }
-        printAllocation(allocation, processSize);
     }
 
     static void printAllocation(int allocation[], int processSize[]) {
@@ -228,5 +1071,62 @@ Display allocation table.
 
 Stop.
 
+⚡ 5. Faster Block Search
+Idea
+
+Scanning every block for every process costs O(processes × blocks). Each strategy can instead keep an index over the blocks:
+
+    - First Fit / Next Fit: a segment tree storing the maximum block size of each range. Descend left whenever the left half holds a block large enough: O(log n).
+
+    - Best Fit: blocks ordered by (size, block number) in a balanced BST; the answer is the smallest entry ≥ (process size, 0).
+
+    - Worst Fit: a max-heap of blocks; the largest block is always on top.
+
+The blocks chosen are exactly the same as with the scans.
+
+♻️ 6. Dynamic Allocation and Coalescing
+Idea
+
+Real processes also terminate. Memory is one range of addresses; allocating splits a hole, and freeing a block creates a new hole.
+
+    - Free holes are kept sorted by address, so a freed block can merge (coalesce) with the hole just before it and the hole just after it.
+
+    - External fragmentation = 1 - (largest hole / total free memory): free memory exists but is split into pieces too small to use.
+
+    - Failure rate = requests that found no hole large enough / all requests.
+
+🧱 7. Buddy System
+Idea
+
+Memory is split into blocks whose sizes are powers of two.
+
+    - Allocate: round the request up to a power of two. If no block of that size is free, split a larger block in halves (buddies) repeatedly.
+
+    - Free: if the block's buddy (address XOR size) is also free, merge them into one block of twice the size, and repeat.
+
+Splitting and merging are fast, but rounding up wastes space inside blocks (internal fragmentation).
+
+📦 8. Segregated Fit (Slab Allocation)
+Idea
+
+Keep a separate free list for each size class (e.g. 1, 2, 4, 8, ... units).
+
+    - Each class takes a slab (a few objects' worth of memory) from the general pool and hands out objects from it.
+
+    - An empty slab is returned to the pool. Large requests bypass the classes.
+
+Allocation of small objects is O(1), and objects of the same size sit together.
+
+🏷️ 9. Boundary Tags
+Idea
+
+A real allocator keeps its bookkeeping inside the memory it manages.
+
+    - Every block has a header and a footer holding its size and an allocated bit.
+
+    - When a block is freed, the footer just before it and the header just after it tell, in O(1), whether the neighbours are free, so they can be merged immediately.
+
+    - Free blocks store the links of the free list in their own (unused) space.
+
 
  */
\ No newline at end of file
@@ -0,0 +1,163 @@
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+
+// Benchmark harness for the MemoryPlacement strategies.
+//
+//   javac MemoryPlacementBenchmark.java
+//   java MemoryPlacementBenchmark [max blocks] [first|best|worst|next ...]
+//   java MemoryPlacementBenchmark replay <malloc trace> [max blocks] [first|best|worst|next ...]
+//   java MemoryPlacementBenchmark gen <uniform|bimodal|powerlaw> <blocks> <input.txt>
+//
+// Each (workload, size, strategy) is measured by BenchmarkHarness in its own
+// JVM, one operation per process placed; the strategies overwrite the block
+// sizes, so a fresh copy is made before every run. Sizes above 1M blocks need a
+// larger heap (-Xmx4g for 10M), which is passed on to the forks.
+public class MemoryPlacementBenchmark {
+    static final String WORKLOADS[] = {"uniform", "bimodal", "powerlaw"};
+
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0 && args[0].equals("gen")) {
+            writeInput(generate(args[1], Integer.parseInt(args[2]), 42), Paths.get(args[3]));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("fork")) {
+            // fork <workload> <blocks> <strategy> [malloc trace]
+            int n = Integer.parseInt(args[2]);
+            run(args[1], args.length > 4 ? replay(readMallocTrace(Paths.get(args[4])), n, 42) : generate(args[1], n, 42), args[3]);
+            return;
+        }
+        String trace = null;
+        if (args.length > 0 && args[0].equals("replay")) {
+            trace = args[1];
+            readMallocTrace(Paths.get(trace));         // fail here rather than in every fork
+            args = Arrays.copyOfRange(args, 2, args.length);
+        }
+        int max = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        List<String> strategies = args.length > 1
+                ? Arrays.asList(args).subList(1, args.length)
+                : Arrays.asList("first", "best", "worst", "next");
+
+        System.out.println("Workload\tBlocks\t\tStrategy\tplacements/s\t+- err\t\tns/placement\tplaced %\tB/placement");
+        for (String workload : trace != null ? new String[]{"replay"} : WORKLOADS) {
+            for (int n = 1000; n <= max; n *= 10) {
+                for (String s : strategies) {
+                    if (trace != null) BenchmarkHarness.fork(MemoryPlacementBenchmark.class, "fork", workload, String.valueOf(n), s, trace);
+                    else BenchmarkHarness.fork(MemoryPlacementBenchmark.class, "fork", workload, String.valueOf(n), s);
+                }
+            }
+        }
+    }
+
+    // ---------- Workload Generators ----------
+    // Each returns {block sizes, process sizes}, n of each.
+    // uniform:  blocks and requests uniform in [1, 1000]
+    // bimodal:  80% small requests (1-64), 20% large (512-4096); blocks uniform in [1, 4096]
+    // powerlaw: Pareto (alpha 1.2) sizes for both, capped at 1M
+    static int[][] generate(String kind, int n, long seed) {
+        Random r = new Random(seed);
+        int block[] = new int[n], process[] = new int[n];
+        for (int i = 0; i < n; i++) {
+            switch (kind) {
+                case "uniform":
+                    block[i] = 1 + r.nextInt(1000);
+                    process[i] = 1 + r.nextInt(1000);
+                    break;
+                case "bimodal":
+                    block[i] = 1 + r.nextInt(4096);
+                    process[i] = r.nextInt(100) < 80 ? 1 + r.nextInt(64) : 512 + r.nextInt(3585);
+                    break;
+                case "powerlaw":
+                    block[i] = pareto(r, 1.2) * 4;
+                    process[i] = pareto(r, 1.2);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown workload: " + kind);
+            }
+        }
+        return new int[][]{block, process};
+    }
+
+    static int pareto(Random r, double alpha) {
+        return (int) Math.min(1_000_000, Math.ceil(1 / Math.pow(1 - r.nextDouble(), 1 / alpha)));
+    }
+
+    // Request sizes from a malloc trace, one event per line: "<size>",
+    // "malloc <size>" or "m <id> <size>" (the last number on the line is the
+    // size). free / realloc lines are skipped, since placement only allocates.
+    static int[] readMallocTrace(Path path) throws IOException {
+        int sizes[] = new int[1024];
+        int n = 0;
+        try (BufferedReader in = Files.newBufferedReader(path)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                String f[] = line.trim().split("[\\s,]+");
+                if (f[0].isEmpty() || f[0].startsWith("#") || f[0].startsWith("f") || f[0].startsWith("r")) continue;
+                try {
+                    int size = Integer.parseInt(f[f.length - 1]);
+                    if (n == sizes.length) sizes = Arrays.copyOf(sizes, n * 2);
+                    sizes[n++] = size;
+                } catch (NumberFormatException e) {
+                    // header or unknown event
+                }
+            }
+        }
+        if (n == 0) throw new IOException("No allocation sizes in " + path);
+        return Arrays.copyOf(sizes, n);
+    }
+
+    // Replays the trace's requests in order (cycling if it is shorter than n);
+    // blocks are requests drawn at random from the same trace, four times larger
+    static int[][] replay(int trace[], int n, long seed) {
+        Random r = new Random(seed);
+        int block[] = new int[n], process[] = new int[n];
+        for (int i = 0; i < n; i++) {
+            process[i] = trace[i % trace.length];
+            block[i] = (int) Math.min(Integer.MAX_VALUE, 4L * trace[r.nextInt(trace.length)]);
+        }
+        return new int[][]{block, process};
+    }
+
+    // Writes the workload as MemoryPlacement's interactive input (the strategy
+    // choice still has to follow)
+    static void writeInput(int w[][], Path out) throws IOException {
+        try (BufferedWriter o = Files.newBufferedWriter(out)) {
+            for (int sizes[] : w) {
+                o.write(sizes.length + "\n");
+                for (int i = 0; i < sizes.length; i++) o.write(sizes[i] + (i + 1 < sizes.length ? " " : "\n"));
+            }
+        }
+    }
+
+    // ---------- Measurement ----------
+    static void run(String workload, int w[][], String strategy) {
+        int block[] = w[0], process[] = w[1];
+        int work[] = new int[block.length];
+        BenchmarkHarness.Result r = BenchmarkHarness.measure(new BenchmarkHarness.Trial() {
+            public void reset() {
+                System.arraycopy(block, 0, work, 0, block.length);
+            }
+
+            public long run() {
+                invoke(strategy, work, process);
+                return process.length;
+            }
+        });
+
+        System.arraycopy(block, 0, work, 0, block.length);
+        long placed = 0;
+        for (int a : invoke(strategy, work, process)) if (a != -1) placed++;
+        System.out.printf("%s\t\t%d\t\t%s\t\t%.0f\t%.0f\t\t%.1f\t\t%.1f\t\t%.1f\n", workload, block.length, strategy, r.mean,
+                r.error, 1e9 / r.mean, 100.0 * placed / process.length, r.bytesPerOp);
+    }
+
+    static int[] invoke(String strategy, int block[], int process[]) {
+        switch (strategy) {
+            case "first": return MemoryPlacement.firstFitAllocation(block, process);
+            case "best": return MemoryPlacement.bestFitAllocation(block, process);
+            case "worst": return MemoryPlacement.worstFitAllocation(block, process);
+            case "next": return MemoryPlacement.nextFitAllocation(block, process);
+            default: throw new IllegalArgumentException("Unknown strategy: " + strategy);
+        }
+    }
+}
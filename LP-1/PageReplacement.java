@@ -1,7 +1,20 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 public class PageReplacement {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0) {
+            runTrace(args);
+            return;
+        }
         Scanner sc = new Scanner(System.in);
 
         System.out.print("Enter number of frames: ");
@@ -20,18 +33,99 @@ public class PageReplacement {
         System.out.println("1. FIFO");
         System.out.println("2. LRU");
         System.out.println("3. Optimal");
+        System.out.println("4. LRU (O(1))");
+        System.out.println("5. Optimal (Next-use Index)");
+        System.out.println("6. CLOCK (Second Chance)");
+        System.out.println("7. LFU (Aging)");
+        System.out.println("8. ARC");
+        System.out.println("9. 2Q");
+        System.out.println("10. LRU Miss-ratio Curve (all frame counts)");
+        System.out.println("11. Compare All Policies (1 to number of frames)");
+        System.out.println("12. Multiprogramming: Global / Local / Working Set / PFF");
+        System.out.println("13. TLB + Multi-level Page Table (LRU frames)");
         System.out.print("Choose algorithm: ");
         int choice = sc.nextInt();
 
+        TraceLog log = null;
+        if (choice >= 1 && choice <= 3) {
+            System.out.print("Output (1 = summary, 2 = every N references, 3 = full trace): ");
+            int level = sc.nextInt();
+            long every = 1;
+            if (level == TraceLog.SAMPLED) {
+                System.out.print("Enter N: ");
+                every = sc.nextLong();
+            }
+            log = new TraceLog(level, every);
+        }
+
         switch (choice) {
             case 1:
-                fifo(pages, frames);
+                fifo(pages, frames, log);
                 break;
             case 2:
-                lru(pages, frames);
+                lru(pages, frames, log);
                 break;
             case 3:
-                optimal(pages, frames);
+                optimal(pages, frames, log);
+                break;
+            case 4:
+                lruFast(pages, frames);
+                break;
+            case 5:
+                optimalFast(pages, frames);
+                break;
+            case 6:
+                simulate(new ClockPolicy(frames), pages);
+                break;
+            case 7:
+                System.out.print("Enter aging period in references (0 for no aging): ");
+                simulate(new LfuPolicy(frames, sc.nextInt()), pages);
+                break;
+            case 8:
+                simulate(new ArcPolicy(frames), pages);
+                break;
+            case 9:
+                simulate(new TwoQueuePolicy(frames), pages);
+                break;
+            case 10:
+                System.out.print("Enter sampling rate (1 for exact, e.g. 0.01 for SHARDS): ");
+                missRatioCurve(pages, frames, sc.nextDouble());
+                break;
+            case 11:
+                comparePolicies(pages, 1, frames);
+                break;
+            case 12:
+                System.out.print("Enter highest degree of multiprogramming: ");
+                int streams[][] = new int[sc.nextInt()][];
+                System.out.print("Process reference strings (1 = the string above, 2 = synthetic locality, 3 = binary trace files): ");
+                int source = sc.nextInt();
+                if (source == 2) {
+                    System.out.print("Enter references per process: ");
+                    int length = sc.nextInt();
+                    for (int i = 0; i < streams.length; i++) streams[i] = localityTrace(i, length);
+                } else if (source == 3) {
+                    for (int i = 0; i < streams.length; i++) {
+                        System.out.print("Trace file for process " + (i + 1) + ": ");
+                        try (PageTrace trace = new PageTrace(Paths.get(sc.next()))) {
+                            streams[i] = trace.toArray();
+                        }
+                    }
+                } else {
+                    for (int i = 0; i < streams.length; i++) streams[i] = rotate(pages, i * n / streams.length);
+                }
+                System.out.print("Enter working-set window (delta): ");
+                int delta = sc.nextInt();
+                System.out.print("Enter PFF threshold (references between faults): ");
+                int threshold = sc.nextInt();
+                multiprogramming(frames, streams, 1, delta, threshold);
+                break;
+            case 13:
+                System.out.print("Enter TLB entries and associativity (ways): ");
+                int entries = sc.nextInt(), ways = sc.nextInt();
+                System.out.print("Enter page table levels: ");
+                Mmu mmu = new Mmu(entries, ways, sc.nextInt(), 12, new LruPolicy(frames));
+                for (int p : pages) mmu.access((long) p << 12);    // page numbers as 4 KB virtual pages
+                mmu.printSummary();
                 break;
             default:
                 System.out.println("Invalid choice!");
@@ -41,37 +135,40 @@ public class PageReplacement {
     }
 
     // ---------- FIFO ----------
+    // Runs on FifoPolicy: a ring buffer of frames plus a primitive membership
+    // test, so a reference allocates nothing. The trace shows the frames in
+    // queue order, oldest first.
     static void fifo(int pages[], int frames) {
-        Queue<Integer> queue = new LinkedList<>();
-        Set<Integer> set = new HashSet<>();
+        fifo(pages, frames, new TraceLog(TraceLog.FULL, 1));
+    }
+
+    static void fifo(int pages[], int frames, TraceLog log) {
+        FifoPolicy policy = new FifoPolicy(frames, densePageLimit(pages));
         int faults = 0;
 
-        System.out.println("\nFIFO Page Replacement:");
+        log.println("\nFIFO Page Replacement:");
         for (int p : pages) {
-            if (!set.contains(p)) {
-                if (set.size() < frames) {
-                    set.add(p);
-                    queue.add(p);
-                } else {
-                    int removed = queue.poll();
-                    set.remove(removed);
-                    set.add(p);
-                    queue.add(p);
-                }
+            if (policy.access(p)) {
                 faults++;
+                log.changed();
             }
-            System.out.println("Page: " + p + " -> " + set);
+            log.page(p, policy);
         }
-        System.out.println("Total Page Faults (FIFO): " + faults);
+        log.println("Total Page Faults (FIFO): " + faults);
+        log.flush();
     }
 
     // ---------- LRU ----------
     static void lru(int pages[], int frames) {
+        lru(pages, frames, new TraceLog(TraceLog.FULL, 1));
+    }
+
+    static void lru(int pages[], int frames, TraceLog log) {
         List<Integer> list = new ArrayList<>();
         Set<Integer> set = new HashSet<>();
         int faults = 0;
 
-        System.out.println("\nLRU Page Replacement:");
+        log.println("\nLRU Page Replacement:");
         for (int p : pages) {
             if (!set.contains(p)) {
                 if (set.size() < frames) {
@@ -84,21 +181,28 @@ public class PageReplacement {
                     list.add(p);
                 }
                 faults++;
-            } else {
+                log.changed();
+            } else if (list.get(list.size() - 1) != p) {
                 list.remove((Integer) p);
                 list.add(p);
+                log.changed();
             }
-            System.out.println("Page: " + p + " -> " + list);
+            log.page(p, list);
         }
-        System.out.println("Total Page Faults (LRU): " + faults);
+        log.println("Total Page Faults (LRU): " + faults);
+        log.flush();
     }
 
     // ---------- OPTIMAL ----------
     static void optimal(int pages[], int frames) {
+        optimal(pages, frames, new TraceLog(TraceLog.FULL, 1));
+    }
+
+    static void optimal(int pages[], int frames, TraceLog log) {
         List<Integer> memory = new ArrayList<>();
         int faults = 0;
 
-        System.out.println("\nOptimal Page Replacement:");
+        log.println("\nOptimal Page Replacement:");
         for (int i = 0; i < pages.length; i++) {
             int p = pages[i];
 
@@ -124,10 +228,1583 @@ public class PageReplacement {
                     memory.set(indexToReplace, p);
                 }
                 faults++;
+                log.changed();
+            }
+            log.page(p, memory);
+        }
+        log.println("Total Page Faults (Optimal): " + faults);
+        log.flush();
+    }
+
+    // ---------- Trace Output ----------
+    // Per-reference "Page: p -> frames" lines at one of three levels: summary
+    // only, every N-th reference, or every reference. Lines go through one
+    // buffered writer instead of a println per reference, and the frame list is
+    // formatted once per change rather than once per line: callers report
+    // changes with changed() and the cached snapshot is reused until then.
+    static class TraceLog {
+        static final int SUMMARY = 1, SAMPLED = 2, FULL = 3;
+        final int level;
+        final long every;
+        final PrintWriter out;
+        long count;
+        String snapshot;
+
+        TraceLog(int level, long every) {
+            this.level = level;
+            this.every = Math.max(every, 1);
+            this.out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out), 1 << 16));
+        }
+
+        void changed() {
+            snapshot = null;
+        }
+
+        void page(int p, Object frames) {
+            if (level == SUMMARY || (level == SAMPLED && count++ % every != 0)) return;
+            if (snapshot == null) snapshot = frames.toString();
+            out.print("Page: ");
+            out.print(p);
+            out.print(" -> ");
+            out.println(snapshot);
+        }
+
+        void println(String line) {
+            out.println(line);
+        }
+
+        void flush() {
+            out.flush();
+        }
+    }
+
+    // ---------- Replacement Policies ----------
+    // Every policy sees one reference at a time and reports whether it faulted,
+    // so the same driver runs all of them and reports faults and hit ratio.
+    interface Policy {
+        boolean access(int page);
+        String name();
+    }
+
+    static int simulate(Policy policy, int pages[]) {
+        int faults = 0;
+        for (int p : pages)
+            if (policy.access(p)) faults++;
+        printSummary(policy.name(), faults, pages.length);
+        return faults;
+    }
+
+    static void printSummary(String name, long faults, long references) {
+        System.out.println("\n" + name + " Page Replacement:");
+        System.out.println("Total Page Faults (" + name + "): " + faults);
+        System.out.printf("Hit Ratio = %.2f%%\n", references == 0 ? 0.0 : 100.0 * (references - faults) / references);
+    }
+
+    // ---------- FIFO (Policy) ----------
+    // Frames form a ring buffer: the slot at head holds the oldest page and is
+    // the one overwritten on a fault. Hits do not touch the ring. Membership is
+    // a bitmap when every page id is in [0, maxPage] and an open-addressing
+    // set otherwise; both are sized up front, so access() never allocates.
+    static final int DENSE_PAGE_LIMIT = 1 << 24;
+
+    static class FifoPolicy implements Policy {
+        final int frames;
+        final int ring[];
+        final long present[];
+        final IntSet resident;
+        int head, size;
+
+        FifoPolicy(int frames) {
+            this(frames, -1);
+        }
+
+        // maxPage < 0 means page ids are unknown or sparse
+        FifoPolicy(int frames, int maxPage) {
+            this.frames = frames;
+            this.ring = new int[Math.max(frames, 1)];
+            this.present = maxPage >= 0 ? new long[(maxPage >> 6) + 1] : null;
+            this.resident = maxPage >= 0 ? null : new IntSet(frames);
+        }
+
+        boolean contains(int p) {
+            return present != null ? (present[p >> 6] & 1L << p) != 0 : resident.contains(p);
+        }
+
+        public boolean access(int p) {
+            if (contains(p)) return false;
+            if (frames <= 0) return true;
+            if (size == frames) {
+                int old = ring[head];
+                if (present != null) present[old >> 6] &= ~(1L << old);
+                else resident.remove(old);
+                ring[head] = p;
+                head = head + 1 == frames ? 0 : head + 1;
+            } else {
+                ring[size++] = p;
+            }
+            if (present != null) present[p >> 6] |= 1L << p;
+            else resident.add(p);
+            return true;
+        }
+
+        public String name() {
+            return "FIFO";
+        }
+
+        public String toString() {
+            StringBuilder sb = new StringBuilder("[");
+            for (int k = 0; k < size; k++) {
+                if (k > 0) sb.append(", ");
+                sb.append(ring[(head + k) % frames]);
+            }
+            return sb.append(']').toString();
+        }
+    }
+
+    // Largest page id if all ids fit a bitmap of DENSE_PAGE_LIMIT bits, else -1
+    static int densePageLimit(int pages[]) {
+        int max = -1;
+        for (int p : pages) {
+            if (p < 0 || p >= DENSE_PAGE_LIMIT) return -1;
+            if (p > max) max = p;
+        }
+        return max;
+    }
+
+    // ---------- LRU (O(1)) ----------
+    // Same replacement decisions as lru(), but recency lives in an IntLinkedSet:
+    // a hit unlinks the page and relinks it at the tail, an eviction unlinks the
+    // head, and both are O(1) with no boxing.
+    static void lruFast(int pages[], int frames) {
+        simulate(new LruPolicy(frames), pages);
+    }
+
+    static class LruPolicy implements Policy {
+        final int frames;
+        final IntLinkedSet recency;
+
+        LruPolicy(int frames) {
+            this.frames = frames;
+            this.recency = new IntLinkedSet(frames);
+        }
+
+        public boolean access(int p) {
+            if (recency.contains(p)) {
+                recency.moveToLast(p);
+                return false;
+            }
+            if (recency.size == frames) recency.removeFirst();
+            recency.addLast(p);
+            return true;
+        }
+
+        public String name() {
+            return "LRU";
+        }
+    }
+
+    // ---------- Optimal (Next-use Index) ----------
+    // Same fault count as optimal(). One backward pass records, for every
+    // reference, where that page is used next. Resident pages sit in a max-heap
+    // keyed by that next use, so the victim is always the heap top, and a
+    // page -> frame map replaces memory.contains(). Each reference is
+    // O(log frames) instead of a rescan of the rest of the string.
+    static void optimalFast(int pages[], int frames) {
+        simulate(new OptimalPolicy(pages, frames), pages);
+    }
+
+    // Must be fed the same reference string it was built from, in order
+    static class OptimalPolicy implements Policy {
+        final int frames;
+        final int nextUse[], framePage[];
+        final IntIntMap frameOf;
+        final SlotHeap heap;
+        int i;
+
+        OptimalPolicy(int pages[], int frames) {
+            this(frames, nextUse(pages));
+        }
+
+        // Shares a next-use index built once by nextUse(); it is only read
+        OptimalPolicy(int frames, int nextUse[]) {
+            this.frames = frames;
+            this.nextUse = nextUse;
+            this.framePage = new int[frames];
+            this.frameOf = new IntIntMap(frames);
+            this.heap = new SlotHeap(frames);
+        }
+
+        public boolean access(int p) {
+            int next = nextUse[i++];
+            int f = frameOf.get(p);
+            if (f != -1) {
+                heap.key[f] = next;             // next use only moves later
+                heap.siftUp(heap.pos[f]);
+                return false;
+            }
+            if (heap.size < frames) {
+                f = heap.size;
+                heap.key[f] = next;
+                heap.add(f);
+            } else {
+                f = heap.top();                 // used farthest in the future
+                frameOf.remove(framePage[f]);
+                heap.key[f] = next;
+                heap.siftDown(0);
+            }
+            framePage[f] = p;
+            frameOf.put(p, f);
+            return true;
+        }
+
+        public String name() {
+            return "Optimal";
+        }
+    }
+
+    // ---------- CLOCK (Second Chance) ----------
+    // Frames form a circle with a reference bit each. A hit sets the bit; on a
+    // fault the hand clears set bits as it passes and replaces the first frame
+    // whose bit is already clear.
+    static class ClockPolicy implements Policy {
+        final int frames;
+        final int framePage[];
+        final boolean referenced[];
+        final IntIntMap frameOf;
+        int hand, used;
+
+        ClockPolicy(int frames) {
+            this.frames = frames;
+            this.framePage = new int[frames];
+            this.referenced = new boolean[frames];
+            this.frameOf = new IntIntMap(frames);
+        }
+
+        public boolean access(int p) {
+            int f = frameOf.get(p);
+            if (f != -1) {
+                referenced[f] = true;
+                return false;
+            }
+            if (used < frames) {
+                f = used++;
+            } else {
+                while (referenced[hand]) {
+                    referenced[hand] = false;
+                    hand = (hand + 1) % frames;
+                }
+                f = hand;
+                hand = (hand + 1) % frames;
+                frameOf.remove(framePage[f]);
+            }
+            framePage[f] = p;
+            referenced[f] = true;
+            frameOf.put(p, f);
+            return true;
+        }
+
+        public String name() {
+            return "CLOCK";
+        }
+    }
+
+    // ---------- LFU with Aging ----------
+    // Evicts the resident page with the fewest references, least recently used
+    // among equals. Every agingPeriod references all counts are halved so pages
+    // that were hot long ago can be evicted (0 disables aging). Frames sit in a
+    // heap keyed by (count, last use), both negated because SlotHeap is a
+    // max-heap; they are compared as two fields so neither can overflow into
+    // the other however large the count grows.
+    static class LfuPolicy implements Policy {
+        final int frames, agingPeriod;
+        final int framePage[], count[];
+        final long lastUse[];
+        final IntIntMap frameOf;
+        final SlotHeap heap;
+        long clock;
+
+        LfuPolicy(int frames, int agingPeriod) {
+            this.frames = frames;
+            this.agingPeriod = agingPeriod;
+            this.framePage = new int[frames];
+            this.count = new int[frames];
+            this.lastUse = new long[frames];
+            this.frameOf = new IntIntMap(frames);
+            this.heap = new SlotHeap(frames);
+        }
+
+        void setKey(int f) {
+            heap.key[f] = -count[f];
+            heap.tie[f] = -lastUse[f];
+        }
+
+        public boolean access(int p) {
+            clock++;
+            if (agingPeriod > 0 && clock % agingPeriod == 0) age();
+            int f = frameOf.get(p);
+            if (f != -1) {
+                if (count[f] < Integer.MAX_VALUE) count[f]++;
+                lastUse[f] = clock;
+                setKey(f);                      // key only decreases
+                heap.siftDown(heap.pos[f]);
+                return false;
+            }
+            if (heap.size < frames) {
+                f = heap.size;
+                set(f, p);
+                heap.add(f);
+            } else {
+                f = heap.top();
+                frameOf.remove(framePage[f]);
+                set(f, p);
+                heap.siftDown(0);
+            }
+            return true;
+        }
+
+        void set(int f, int p) {
+            framePage[f] = p;
+            count[f] = 1;
+            lastUse[f] = clock;
+            setKey(f);
+            frameOf.put(p, f);
+        }
+
+        void age() {
+            for (int k = 0; k < heap.size; k++) {
+                int f = heap.heap[k];
+                count[f] >>= 1;
+                setKey(f);
+            }
+            for (int k = heap.size / 2 - 1; k >= 0; k--) heap.siftDown(k);
+        }
+
+        public String name() {
+            return "LFU";
+        }
+    }
+
+    // ---------- ARC ----------
+    // Adaptive Replacement Cache (Megiddo & Modha). T1 holds pages seen once
+    // recently, T2 pages seen at least twice; B1/B2 remember the pages evicted
+    // from each. A hit in a ghost list moves the target size p of T1 towards
+    // the list that would have kept the page. All four lists are IntLinkedSets
+    // with the LRU end first, so every step is O(1).
+    static class ArcPolicy implements Policy {
+        final int c;
+        final IntLinkedSet t1, t2, b1, b2;
+        int p;
+
+        ArcPolicy(int frames) {
+            c = frames;
+            t1 = new IntLinkedSet(frames);
+            t2 = new IntLinkedSet(frames);
+            b1 = new IntLinkedSet(frames);
+            b2 = new IntLinkedSet(frames);
+        }
+
+        public boolean access(int x) {
+            if (t1.contains(x)) {
+                t1.remove(x);
+                t2.addLast(x);
+                return false;
+            }
+            if (t2.contains(x)) {
+                t2.moveToLast(x);
+                return false;
+            }
+            if (b1.contains(x)) {
+                p = Math.min(c, p + Math.max(b2.size / b1.size, 1));
+                replace(false);
+                b1.remove(x);
+                t2.addLast(x);
+                return true;
+            }
+            if (b2.contains(x)) {
+                p = Math.max(0, p - Math.max(b1.size / b2.size, 1));
+                replace(true);
+                b2.remove(x);
+                t2.addLast(x);
+                return true;
+            }
+            int l1 = t1.size + b1.size, total = l1 + t2.size + b2.size;
+            if (l1 == c) {
+                if (t1.size < c) {
+                    b1.removeFirst();
+                    replace(false);
+                } else {
+                    t1.removeFirst();
+                }
+            } else if (total >= c) {
+                if (total == 2 * c) b2.removeFirst();
+                replace(false);
+            }
+            t1.addLast(x);
+            return true;
+        }
+
+        void replace(boolean inB2) {
+            if (t1.size > 0 && (t1.size > p || (inB2 && t1.size == p))) b1.addLast(t1.removeFirst());
+            else b2.addLast(t2.removeFirst());
+        }
+
+        public String name() {
+            return "ARC";
+        }
+    }
+
+    // ---------- 2Q ----------
+    // Full 2Q (Johnson & Shasha). New pages enter the FIFO A1in (a quarter of the
+    // frames); pages pushed out of it are remembered in the ghost FIFO A1out (half
+    // the frames). A page referenced again while in A1out is promoted to the LRU
+    // list Am, so one-time scans cannot flush the frequently used pages.
+    static class TwoQueuePolicy implements Policy {
+        final int frames, kin, kout;
+        final IntLinkedSet a1in, a1out, am;
+
+        TwoQueuePolicy(int frames) {
+            this.frames = frames;
+            this.kin = Math.max(1, frames / 4);
+            this.kout = Math.max(1, frames / 2);
+            this.a1in = new IntLinkedSet(kin);
+            this.a1out = new IntLinkedSet(kout);
+            this.am = new IntLinkedSet(frames);
+        }
+
+        public boolean access(int x) {
+            if (am.contains(x)) {
+                am.moveToLast(x);
+                return false;
+            }
+            if (a1in.contains(x)) return false;
+            reclaim();
+            if (a1out.contains(x)) {
+                a1out.remove(x);
+                am.addLast(x);
+            } else {
+                a1in.addLast(x);
+            }
+            return true;
+        }
+
+        // Free one frame if memory is full
+        void reclaim() {
+            if (a1in.size + am.size < frames) return;
+            if (a1in.size > kin || am.size == 0) {
+                a1out.addLast(a1in.removeFirst());
+                if (a1out.size > kout) a1out.removeFirst();
+            } else {
+                am.removeFirst();
+            }
+        }
+
+        public String name() {
+            return "2Q";
+        }
+    }
+
+    // ---------- Miss-ratio Curve (Mattson Stack Distance) ----------
+    // LRU is a stack algorithm: with c frames a reference hits exactly when its
+    // stack distance (distinct pages referenced since the previous use of the
+    // same page, itself included) is at most c. So one pass that histograms the
+    // distances gives the LRU fault count for every frame count at once.
+    //
+    // Each page marks the time of its last reference in a Fenwick tree, and a
+    // distance is the number of marks from that time to now: O(log n) per
+    // reference. When the time axis fills up the live marks are renumbered
+    // 1..distinct, so memory follows the number of distinct pages, not the
+    // length of the trace.
+    //
+    // rate < 1 turns on SHARDS sampling: only pages whose hash falls under
+    // rate * 2^24 are tracked. The histogram holds the sampled distances, so it
+    // stays as small as the sample; distances and counts are scaled by 1 / rate
+    // only when the curve is printed, one row per sampled distance.
+    static void missRatioCurve(int pages[], int frames, double rate) {
+        StackDistance sd = new StackDistance(rate);
+        for (int p : pages) sd.access(p);
+        sd.printCurve(frames);
+    }
+
+    static class StackDistance {
+        static final int HASH_BITS = 24;
+        final double rate;
+        final long threshold;
+        final IntIntMap lastAccess = new IntIntMap(1024);
+        int tree[] = new int[1 << 16];          // Fenwick tree over times 1..length-1
+        int time;
+        long hist[] = new long[64];             // hist[d] = sampled references at distance d
+        int maxDistance;
+        long cold, references, sampled;
+
+        StackDistance(double rate) {
+            if (rate <= 0 || rate > 1) throw new IllegalArgumentException("Sampling rate must be in (0, 1]");
+            this.rate = rate;
+            this.threshold = (long) Math.ceil(rate * (1 << HASH_BITS));
+        }
+
+        void access(int p) {
+            references++;
+            if (rate < 1) {
+                long h = p * 0x9E3779B97F4A7C15L;
+                if (((h ^ (h >>> 29)) >>> 40) >= threshold) return;
+            }
+            sampled++;
+            if (time == tree.length - 1) compact();
+            int last = lastAccess.get(p);
+            if (last == -1) {
+                cold++;
+            } else {
+                int d = prefix(time) - prefix(last - 1);
+                record(d);
+                add(last, -1);
+            }
+            add(++time, 1);
+            lastAccess.put(p, time);
+        }
+
+        void record(int d) {
+            if (d >= hist.length) hist = Arrays.copyOf(hist, Math.max(hist.length * 2, d + 1));
+            hist[d]++;
+            if (d > maxDistance) maxDistance = d;
+        }
+
+        int prefix(int i) {
+            int sum = 0;
+            for (; i > 0; i -= i & -i) sum += tree[i];
+            return sum;
+        }
+
+        void add(int i, int delta) {
+            for (; i < tree.length; i += i & -i) tree[i] += delta;
+        }
+
+        // Renumber the live last-access times 1..live in their original order
+        void compact() {
+            int live = lastAccess.size;
+            int cap = tree.length;
+            while (live * 2 >= cap) cap *= 2;
+            long order[] = new long[live];
+            int k = 0;
+            for (int i = 0; i < lastAccess.keys.length; i++)
+                if (lastAccess.used[i]) order[k++] = (long) lastAccess.vals[i] << 32 | i;
+            Arrays.sort(order);
+            for (k = 0; k < live; k++) lastAccess.vals[(int) order[k]] = k + 1;
+            tree = new int[cap];
+            for (int i = 1; i < cap; i++) {
+                if (i <= live) tree[i]++;
+                int parent = i + (i & -i);
+                if (parent < cap) tree[parent] += tree[i];
+            }
+            time = live;
+        }
+
+        // Frame count a sampled distance stands for
+        int frameCount(int d) {
+            return rate < 1 ? (int) Math.max(1, Math.round(d / rate)) : d;
+        }
+
+        // Faults with c frames = cold misses + references with distance > c.
+        // Rows step through the sampled distances (every frame count when
+        // exact); the requested frame count gets a row of its own.
+        void printCurve(int frames) {
+            double scale = 1 / rate;
+            System.out.println("\nLRU Miss-ratio Curve (" + (rate < 1 ? "SHARDS, rate " + rate : "exact") + "):");
+            System.out.println("References: " + references + (rate < 1 ? ", sampled: " + sampled : ""));
+            System.out.println("Frames\tFaults\t\tMiss Ratio");
+            long beyond = 0;
+            for (int d = 1; d <= maxDistance; d++) beyond += hist[d];
+            boolean shown = false;
+            for (int d = 1; d <= maxDistance || !shown; d++) {
+                int c = frameCount(d);
+                if (!shown && frames < c) {
+                    printRow(frames, Math.round((cold + beyond) * scale), true);
+                    shown = true;
+                }
+                beyond -= d < hist.length ? hist[d] : 0;
+                printRow(c, Math.round((cold + beyond) * scale), c == frames);
+                shown |= c == frames;
+            }
+        }
+
+        void printRow(int c, long faults, boolean marked) {
+            System.out.printf("%d\t%d\t\t%.4f%s\n", c, faults,
+                    references == 0 ? 0.0 : Math.min(1.0, (double) faults / references), marked ? "\t<- " + c + " frames" : "");
+        }
+    }
+
+    // ---------- Parallel Comparison ----------
+    // Runs every policy for every frame count in [minFrames, maxFrames] as
+    // separate fork-join tasks. All tasks read the same reference string (and
+    // Optimal's next-use index); each builds its own policy state.
+    static final String POLICIES[] = {"FIFO", "LRU", "Optimal", "CLOCK", "LFU", "ARC", "2Q"};
+
+    static Policy newPolicy(int policy, int frames, int nextUse[]) {
+        switch (policy) {
+            case 0: return new FifoPolicy(frames);
+            case 1: return new LruPolicy(frames);
+            case 2: return new OptimalPolicy(frames, nextUse);
+            case 3: return new ClockPolicy(frames);
+            case 4: return new LfuPolicy(frames, 0);
+            case 5: return new ArcPolicy(frames);
+            default: return new TwoQueuePolicy(frames);
+        }
+    }
+
+    static class PolicyRun extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        final int pages[], nextUse[];
+        final int policy, frames;
+        long faults;
+
+        PolicyRun(int pages[], int nextUse[], int policy, int frames) {
+            this.pages = pages;
+            this.nextUse = nextUse;
+            this.policy = policy;
+            this.frames = frames;
+        }
+
+        protected void compute() {
+            Policy p = newPolicy(policy, frames, nextUse);
+            long f = 0;
+            for (int page : pages)
+                if (p.access(page)) f++;
+            faults = f;
+        }
+    }
+
+    static long[][] comparePolicies(int pages[], int minFrames, int maxFrames) {
+        minFrames = Math.max(minFrames, 1);
+        int nextUse[] = nextUse(pages);
+        int counts = Math.max(maxFrames - minFrames + 1, 0);
+        PolicyRun runs[][] = new PolicyRun[counts][POLICIES.length];
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        for (int f = 0; f < counts; f++)
+            for (int k = 0; k < POLICIES.length; k++)
+                pool.execute(runs[f][k] = new PolicyRun(pages, nextUse, k, minFrames + f));
+
+        long faults[][] = new long[counts][POLICIES.length];
+        for (int f = 0; f < counts; f++) {
+            for (int k = 0; k < POLICIES.length; k++) {
+                runs[f][k].join();
+                faults[f][k] = runs[f][k].faults;
+            }
+        }
+        printComparison(faults, minFrames, pages.length);
+        return faults;
+    }
+
+    // Fault matrix, hit-ratio matrix, then every place where one more frame
+    // caused more faults (Belady's anomaly). LRU and Optimal are stack
+    // algorithms and can never show it.
+    static void printComparison(long faults[][], int minFrames, long references) {
+        StringBuilder header = new StringBuilder("Frames");
+        for (String name : POLICIES) header.append('\t').append(name);
+
+        System.out.println("\nPage Faults:");
+        System.out.println(header);
+        for (int f = 0; f < faults.length; f++) {
+            StringBuilder row = new StringBuilder().append(minFrames + f);
+            for (long x : faults[f]) row.append('\t').append(x);
+            System.out.println(row);
+        }
+
+        System.out.println("\nHit Ratio (%):");
+        System.out.println(header);
+        for (int f = 0; f < faults.length; f++) {
+            StringBuilder row = new StringBuilder().append(minFrames + f);
+            for (long x : faults[f])
+                row.append('\t').append(String.format("%.2f", references == 0 ? 0.0 : 100.0 * (references - x) / references));
+            System.out.println(row);
+        }
+
+        System.out.println("\nBelady's Anomaly:");
+        boolean found = false;
+        for (int k = 0; k < POLICIES.length; k++) {
+            for (int f = 1; f < faults.length; f++) {
+                if (faults[f][k] > faults[f - 1][k]) {
+                    System.out.println(POLICIES[k] + ": " + (minFrames + f - 1) + " frames -> " + faults[f - 1][k]
+                            + " faults, " + (minFrames + f) + " frames -> " + faults[f][k] + " faults");
+                    found = true;
+                }
+            }
+        }
+        if (!found) System.out.println("None in this range");
+    }
+
+    // ---------- Multiprogramming (Working Set / PFF) ----------
+    // Several processes share one pool of frames. The CPU runs ready processes
+    // round robin, QUANTUM references at a time; a page fault blocks the process
+    // on a single FIFO paging disk for FAULT_TIME ticks. Frames are managed in
+    // one of four ways:
+    //   GLOBAL       one replacement policy over all frames (any process's page can be evicted)
+    //   LOCAL        every process gets frames / processes frames and its own policy
+    //   WORKING_SET  a process keeps the pages it used in its last delta references
+    //   PFF          page-fault frequency: on a fault after more than threshold
+    //                references, pages not used since the previous fault are released
+    // The last two use load control: when resident sets exceed the pool, the process
+    // with the largest one is suspended (its frames freed) until there is room again.
+    static final int MP_GLOBAL = 0, MP_LOCAL = 1, MP_WORKING_SET = 2, MP_PFF = 3;
+    static final String MP_MODES[] = {"Global", "Local", "Working Set", "PFF"};
+    static final int QUANTUM = 10, FAULT_TIME = 20;
+    static final int READY = 0, BLOCKED = 1, SUSPENDED = 2, DONE = 3;
+
+    static class MultiProgram {
+        final int mode, frames, processes, param;
+        final int trace[][];
+        final int state[], pos[], vt[], lastFault[], savedSize[];
+        final long faults[], wakeAt[];
+        final boolean queued[];
+        final IntIntMap lastRef[], globalId[];
+        final int ring[][];
+        final Policy policies[];
+        int scratch[] = new int[16];
+        int resident, suspensions, nextId;
+        long time, busy, diskBusy;
+
+        // param is the policy for GLOBAL / LOCAL, delta for WORKING_SET and the
+        // threshold for PFF
+        MultiProgram(int mode, int frames, int trace[][], int param) {
+            this.mode = mode;
+            this.frames = frames;
+            this.processes = trace.length;
+            this.param = param;
+            this.trace = trace;
+            state = new int[processes];
+            pos = new int[processes];
+            vt = new int[processes];
+            lastFault = new int[processes];
+            savedSize = new int[processes];
+            faults = new long[processes];
+            wakeAt = new long[processes];
+            queued = new boolean[processes];
+            lastRef = new IntIntMap[processes];
+            globalId = new IntIntMap[processes];
+            ring = new int[processes][];
+            policies = new Policy[mode == MP_GLOBAL ? 1 : processes];
+            if (mode == MP_GLOBAL) {
+                policies[0] = newPolicy(param, frames, null);
+                for (int i = 0; i < processes; i++) globalId[i] = new IntIntMap(64);
+            } else if (mode == MP_LOCAL) {
+                for (int i = 0; i < processes; i++) policies[i] = newPolicy(param, Math.max(1, frames / processes), null);
+            } else {
+                for (int i = 0; i < processes; i++) lastRef[i] = new IntIntMap(64);
+                if (mode == MP_WORKING_SET)
+                    for (int i = 0; i < processes; i++) ring[i] = new int[Math.max(param, 1)];
+            }
+        }
+
+        void run() {
+            ArrayDeque<Integer> ready = new ArrayDeque<>(), blocked = new ArrayDeque<>(), parked = new ArrayDeque<>();
+            for (int i = 0; i < processes; i++) enqueue(ready, i);
+            long diskFree = 0;
+            int finished = 0;
+            while (finished < processes) {
+                while (!blocked.isEmpty() && wakeAt[blocked.peek()] <= time) {
+                    int i = blocked.poll();
+                    if (state[i] == BLOCKED) {
+                        state[i] = READY;
+                        enqueue(ready, i);
+                    }
+                }
+                while (!parked.isEmpty() && (resident + savedSize[parked.peek()] <= frames || ready.isEmpty() && blocked.isEmpty())) {
+                    // A process suspended while its fault was being served stays
+                    // blocked (its entry is still in 'blocked') until the page arrives
+                    int i = parked.poll();
+                    state[i] = wakeAt[i] > time ? BLOCKED : READY;
+                    if (state[i] == READY) enqueue(ready, i);
+                }
+                if (ready.isEmpty()) {
+                    time = wakeAt[blocked.peek()];     // CPU idle until the disk delivers a page
+                    continue;
+                }
+                int i = ready.poll();
+                queued[i] = false;
+                if (state[i] != READY) continue;
+
+                for (int q = 0; q < QUANTUM && state[i] == READY; q++) {
+                    time++;
+                    busy++;
+                    boolean fault = access(i, trace[i][pos[i]++]);
+                    if (fault) {
+                        faults[i]++;
+                        diskFree = Math.max(diskFree, time) + FAULT_TIME;
+                        diskBusy += FAULT_TIME;
+                        wakeAt[i] = diskFree;
+                        state[i] = BLOCKED;
+                        blocked.add(i);
+                    }
+                    if (pos[i] == trace[i].length) {
+                        state[i] = DONE;
+                        release(i);
+                        finished++;
+                    }
+                    while (resident > frames) suspendLargest(parked);
+                }
+                if (state[i] == READY) enqueue(ready, i);
+            }
+        }
+
+        void enqueue(ArrayDeque<Integer> ready, int i) {
+            if (!queued[i]) {
+                queued[i] = true;
+                ready.add(i);
+            }
+        }
+
+        boolean access(int i, int page) {
+            switch (mode) {
+                case MP_GLOBAL: return policies[0].access(globalPage(i, page));
+                case MP_LOCAL: return policies[i].access(page);
+                case MP_WORKING_SET: return workingSet(i, page);
+                default: return pff(i, page);
+            }
+        }
+
+        // The shared policy sees every (process, page) pair as its own dense id,
+        // so address spaces never overlap whatever the page numbers are
+        int globalPage(int i, int page) {
+            int id = globalId[i].get(page);
+            if (id == -1) {
+                id = nextId++;
+                globalId[i].put(page, id);
+            }
+            return id;
+        }
+
+        boolean workingSet(int i, int page) {
+            int t = vt[i]++, delta = ring[i].length;
+            IntIntMap ws = lastRef[i];
+            if (t >= delta) {
+                int old = ring[i][t % delta];
+                if (ws.get(old) == t - delta) {     // not used again inside the window
+                    ws.remove(old);
+                    resident--;
+                }
+            }
+            boolean fault = !ws.containsKey(page);
+            if (fault) resident++;
+            ws.put(page, t);
+            ring[i][t % delta] = page;
+            return fault;
+        }
+
+        boolean pff(int i, int page) {
+            int t = vt[i]++;
+            IntIntMap rs = lastRef[i];
+            if (rs.containsKey(page)) {
+                rs.put(page, t);
+                return false;
+            }
+            if (t - lastFault[i] > param) {
+                // Faults are rare: shrink to the pages used since the last fault
+                int n = 0;
+                if (scratch.length < rs.size) scratch = new int[rs.size * 2];
+                for (int k = 0; k < rs.keys.length; k++)
+                    if (rs.used[k] && rs.vals[k] < lastFault[i]) scratch[n++] = rs.keys[k];
+                for (int k = 0; k < n; k++) rs.remove(scratch[k]);
+                resident -= n;
+            }
+            lastFault[i] = t;
+            rs.put(page, t);
+            resident++;
+            return true;
+        }
+
+        void release(int i) {
+            if (lastRef[i] == null) return;
+            savedSize[i] = lastRef[i].size;
+            resident -= lastRef[i].size;
+            lastRef[i].clear();
+        }
+
+        // Load control: swap out the active process holding the most frames
+        void suspendLargest(ArrayDeque<Integer> parked) {
+            int victim = -1;
+            for (int i = 0; i < processes; i++)
+                if ((state[i] == READY || state[i] == BLOCKED) && (victim == -1 || lastRef[i].size > lastRef[victim].size))
+                    victim = i;
+            release(victim);
+            state[victim] = SUSPENDED;
+            parked.add(victim);
+            suspensions++;
+        }
+
+        long references() {
+            long n = 0;
+            for (int t[] : trace) n += t.length;
+            return n;
+        }
+    }
+
+    // Process i's reference string: phases of 2000-5000 references, each drawing
+    // 99% of its references from a locality of 10-30 consecutive pages out of
+    // 200. The seed depends only on i, so process i runs the same string at
+    // every degree of multiprogramming.
+    static int[] localityTrace(int i, int length) {
+        Random r = new Random(1000 + i);
+        int pages[] = new int[length];
+        int base = 0, size = 1, left = 0;
+        for (int k = 0; k < length; k++) {
+            if (left-- == 0) {
+                left = 2000 + r.nextInt(3001);
+                size = 10 + r.nextInt(21);
+                base = r.nextInt(200 - size);
+            }
+            pages[k] = r.nextInt(100) < 99 ? base + r.nextInt(size) : r.nextInt(200);
+        }
+        return pages;
+    }
+
+    // The entered reference string as process i's stream: every process runs
+    // the same program in its own address space, started at a different point
+    // so they do not fault in lockstep.
+    static int[] rotate(int pages[], int start) {
+        int out[] = new int[pages.length];
+        for (int k = 0; k < pages.length; k++) out[k] = pages[(start + k) % pages.length];
+        return out;
+    }
+
+    // Runs every frame management mode for the first 1..streams.length
+    // processes, process i running streams[i]. A run is flagged as thrashing
+    // when the paging disk is saturated (over 90% busy) while the CPU is idle
+    // most of the time (under 50% busy).
+    static void multiprogramming(int frames, int streams[][], int policy, int delta, int threshold) {
+        for (int s[] : streams) {
+            if (s.length == 0) {
+                System.out.println("Every process needs at least one reference.");
+                return;
+            }
+        }
+        System.out.println("\nMultiprogramming with " + frames + " frames (" + POLICIES[policy] + " for Global / Local, delta = "
+                + delta + ", PFF threshold = " + threshold + "):");
+        System.out.println("Mode\t\tProcesses\tThroughput\tCPU %\tDisk %\tSuspended\tFault rate per process (%)");
+        for (int mode = MP_GLOBAL; mode <= MP_PFF; mode++) {
+            double peak = 0;
+            for (int n = 1; n <= streams.length; n++) {
+                int trace[][] = Arrays.copyOf(streams, n);
+                MultiProgram mp = new MultiProgram(mode, frames, trace, mode == MP_WORKING_SET ? delta : mode == MP_PFF ? threshold : policy);
+                mp.run();
+
+                double throughput = (double) mp.references() / mp.time;
+                double cpu = 100.0 * mp.busy / mp.time, disk = 100.0 * Math.min(mp.diskBusy, mp.time) / mp.time;
+                peak = Math.max(peak, throughput);
+                StringBuilder rates = new StringBuilder();
+                for (int i = 0; i < n; i++) rates.append(i == 0 ? "" : " ").append(String.format("%.2f", 100.0 * mp.faults[i] / trace[i].length));
+                System.out.printf("%-12s\t%d\t\t%.4f\t\t%.1f\t%.1f\t%d\t\t%s%s\n", MP_MODES[mode], n, throughput, cpu, disk,
+                        mp.suspensions, rates, disk > 90 && cpu < 50 ? "\t<- thrashing" : "");
+            }
+        }
+    }
+
+    // ---------- TLB and Multi-level Page Table ----------
+    // Translates virtual addresses through a set-associative TLB (LRU within a
+    // set) and, on a TLB miss, a radix page table of `levels` levels with 512
+    // entries per table (x86-64 style: 4 levels of 4 KB pages cover 48 bits;
+    // 3 levels with 21 page bits model 2 MB huge pages). Each level of a walk
+    // is one memory access. Residency of the virtual pages in physical frames
+    // is decided by one of the existing policies, which sees every access.
+    //
+    // Policies do not report evictions, so TLB entries are not shot down when
+    // their page leaves memory; a page fault always counts as a TLB miss
+    // instead, which is what the shootdown would have caused.
+    static final int LEVEL_BITS = 9;
+    static final double TLB_NS = 1, MEMORY_NS = 100, FAULT_NS = 8_000_000;
+
+    static class Mmu {
+        final int pageBits, levels, sets, ways;
+        final long tag[], lastUse[];            // TLB: tag = virtual page number, -1 = empty
+        final Policy policy;
+        int table[][] = new int[16][];          // table[k][index] = child table + 1 (0 = not allocated)
+        int tables = 1;
+        long clock, accesses, tlbMisses, walkAccesses, faults;
+
+        Mmu(int tlbEntries, int ways, int levels, int pageBits, Policy policy) {
+            this.ways = Math.max(1, Math.min(ways, tlbEntries));
+            this.sets = Integer.highestOneBit(Math.max(1, tlbEntries / this.ways));
+            this.levels = levels;
+            this.pageBits = pageBits;
+            this.policy = policy;
+            tag = new long[sets * this.ways];
+            lastUse = new long[sets * this.ways];
+            Arrays.fill(tag, -1);
+            table[0] = new int[1 << LEVEL_BITS];
+        }
+
+        void access(long address) {
+            long vpn = address >>> pageBits;
+            accesses++;
+            // Page ids for the policy: virtual page numbers folded to 32 bits
+            boolean fault = policy.access((int) (vpn ^ (vpn >>> 32)));
+            if (fault) faults++;
+            int base = (int) (vpn & (sets - 1)) * ways, victim = base;
+            clock++;
+            if (!fault) {
+                for (int w = base; w < base + ways; w++) {
+                    if (tag[w] == vpn) {
+                        lastUse[w] = clock;
+                        return;
+                    }
+                    if (lastUse[w] < lastUse[victim]) victim = w;
+                }
+            } else {
+                for (int w = base; w < base + ways; w++) {
+                    if (tag[w] == vpn) {            // stale entry for the evicted page
+                        victim = w;
+                        break;
+                    }
+                    if (lastUse[w] < lastUse[victim]) victim = w;
+                }
+            }
+            tlbMisses++;
+            walk(vpn);
+            tag[victim] = vpn;
+            lastUse[victim] = clock;
+        }
+
+        // Root to leaf, allocating tables on first touch
+        void walk(long vpn) {
+            int node = 0;
+            for (int l = levels - 1; l > 0; l--) {
+                walkAccesses++;
+                int index = (int) (vpn >>> (l * LEVEL_BITS)) & ((1 << LEVEL_BITS) - 1);
+                int child = table[node][index];
+                if (child == 0) {
+                    if (tables == table.length) table = Arrays.copyOf(table, tables * 2);
+                    table[tables] = new int[1 << LEVEL_BITS];
+                    child = table[node][index] = ++tables;
+                }
+                node = child - 1;
+            }
+            walkAccesses++;                         // leaf entry
+            table[node][(int) vpn & ((1 << LEVEL_BITS) - 1)] = 1;
+        }
+
+        // A TLB hit costs the lookup plus the access itself; a miss adds one
+        // memory access per level of the walk; a fault adds the service time
+        void printSummary() {
+            double hits = accesses - tlbMisses;
+            double emat = accesses == 0 ? 0 : (accesses * (TLB_NS + MEMORY_NS) + walkAccesses * MEMORY_NS) / accesses;
+            System.out.println("\nTLB: " + sets * ways + " entries, " + ways + "-way, page table: " + levels + " levels, "
+                    + (1L << pageBits) + " byte pages (" + policy.name() + " for frames)");
+            System.out.println("Accesses: " + accesses);
+            System.out.printf("TLB Hits = %d (%.2f%%), TLB Misses = %d\n", (long) hits, accesses == 0 ? 0.0 : 100 * hits / accesses, tlbMisses);
+            System.out.println("Page Walk Memory Accesses = " + walkAccesses + ", Page Tables = " + tables
+                    + " (" + tables * 4 + " KB with 8-byte entries)");
+            System.out.println("Page Faults = " + faults);
+            System.out.printf("TLB Reach = %d KB\n", ((long) sets * ways << pageBits) / 1024);
+            System.out.printf("EMAT without faults = %.2f ns\n", emat);
+            System.out.printf("EMAT with faults = %.2f ns\n", accesses == 0 ? 0 : emat + faults * FAULT_NS / accesses);
+        }
+    }
+
+    static void tlbTrace(String args[]) throws IOException {
+        Policy policy = policyByName(args[3], Integer.parseInt(args[2]), null);
+        if (policy == null) {
+            System.out.println("Unknown algorithm: " + args[3]);
+            return;
+        }
+        Mmu mmu = new Mmu(Integer.parseInt(args[4]), Integer.parseInt(args[5]), args.length > 6 ? Integer.parseInt(args[6]) : 4,
+                args.length > 7 ? Integer.parseInt(args[7]) : 12, policy);
+        try (AddressTrace trace = new AddressTrace(Paths.get(args[1]))) {
+            trace.run(mmu);
+        }
+        mmu.printSummary();
+    }
+
+    // ---------- Trace Mode ----------
+    //   java PageReplacement convert <input.txt> <trace.bin>
+    //   java PageReplacement <trace.bin> <frames> <fifo|lru|clock|lfu|arc|2q|mrc> [aging period | sampling rate]
+    static void runTrace(String args[]) throws IOException {
+        if (args[0].equals("convert") && args.length == 3) {
+            long n = convert(Paths.get(args[1]), Paths.get(args[2]));
+            System.out.println("Wrote " + n + " references to " + args[2]);
+            return;
+        }
+        if (args[0].equals("tlb") && args.length >= 6) {
+            tlbTrace(args);
+            return;
+        }
+        if (args[0].equals("mp") && args.length >= 5) {
+            int streams[][] = new int[args.length - 4][];
+            for (int i = 0; i < streams.length; i++) {
+                try (PageTrace trace = new PageTrace(Paths.get(args[4 + i]))) {
+                    streams[i] = trace.toArray();
+                }
+            }
+            multiprogramming(Integer.parseInt(args[1]), streams, 1, Integer.parseInt(args[2]), Integer.parseInt(args[3]));
+            return;
+        }
+        if (args.length < 3) {
+            System.out.println("Usage: java PageReplacement convert <input.txt> <trace.bin>");
+            System.out.println("       java PageReplacement <trace.bin> <frames> <fifo|lru|clock|lfu|arc|2q|mrc> [aging period | sampling rate]");
+            System.out.println("       java PageReplacement tlb <addresses.bin> <frames> <policy> <tlb entries> <ways> [levels] [page bits]");
+            System.out.println("       java PageReplacement mp <frames> <delta> <PFF threshold> <process1.bin> [process2.bin ...]");
+            return;
+        }
+        int frames = Integer.parseInt(args[1]);
+        try (PageTrace trace = new PageTrace(Paths.get(args[0]))) {
+            if (args[2].equalsIgnoreCase("mrc")) {
+                StackDistance sd = new StackDistance(args.length > 3 ? Double.parseDouble(args[3]) : 1);
+                trace.feed(sd);
+                sd.printCurve(frames);
+                return;
+            }
+            Policy policy = policyByName(args[2], frames, args.length > 3 ? args[3] : null);
+            if (policy == null) {
+                System.out.println("Unknown algorithm: " + args[2]);
+                return;
+            }
+            printSummary(policy.name() + " (trace)", trace.run(policy), trace.length);
+        }
+    }
+
+    // Online policies by command-line name; arg is LFU's aging period
+    static Policy policyByName(String name, int frames, String arg) {
+        switch (name.toLowerCase()) {
+            case "fifo": return new FifoPolicy(frames);
+            case "lru": return new LruPolicy(frames);
+            case "clock": return new ClockPolicy(frames);
+            case "lfu": return new LfuPolicy(frames, arg != null ? Integer.parseInt(arg) : 0);
+            case "arc": return new ArcPolicy(frames);
+            case "2q": return new TwoQueuePolicy(frames);
+            default: return null;
+        }
+    }
+
+    // Binary page trace: one little-endian int32 page number per reference, no
+    // header. The file is mapped in windows of up to 1 GB and policies read the
+    // references straight out of the mapping, so the trace is never copied onto
+    // the heap.
+    static class PageTrace implements Closeable {
+        static final long WINDOW = 1L << 30;
+        final FileChannel ch;
+        final IntBuffer windows[];
+        final long length;
+
+        PageTrace(Path path) throws IOException {
+            ch = FileChannel.open(path, StandardOpenOption.READ);
+            length = ch.size() / 4;
+            long bytes = length * 4;
+            windows = new IntBuffer[(int) ((bytes + WINDOW - 1) / WINDOW)];
+            for (int k = 0; k < windows.length; k++) {
+                long offset = k * WINDOW;
+                windows[k] = ch.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(WINDOW, bytes - offset))
+                        .order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+            }
+        }
+
+        long run(Policy policy) {
+            long faults = 0;
+            for (IntBuffer w : windows)
+                for (int i = 0, n = w.limit(); i < n; i++)
+                    if (policy.access(w.get(i))) faults++;
+            return faults;
+        }
+
+        void feed(StackDistance sd) {
+            for (IntBuffer w : windows)
+                for (int i = 0, n = w.limit(); i < n; i++)
+                    sd.access(w.get(i));
+        }
+
+        // Copies the trace onto the heap, for simulations that interleave several traces
+        int[] toArray() throws IOException {
+            if (length > Integer.MAX_VALUE - 8) throw new IOException("Trace too long to load: " + length + " references");
+            int pages[] = new int[(int) length];
+            int k = 0;
+            for (IntBuffer w : windows) {
+                w.get(0, pages, k, w.limit());
+                k += w.limit();
+            }
+            return pages;
+        }
+
+        public void close() throws IOException {
+            ch.close();
+        }
+    }
+
+    // Binary address trace: one little-endian int64 virtual address per access,
+    // mapped the same way as PageTrace
+    static class AddressTrace implements Closeable {
+        static final long WINDOW = 1L << 30;
+        final FileChannel ch;
+        final LongBuffer windows[];
+
+        AddressTrace(Path path) throws IOException {
+            ch = FileChannel.open(path, StandardOpenOption.READ);
+            long bytes = ch.size() / 8 * 8;
+            windows = new LongBuffer[(int) ((bytes + WINDOW - 1) / WINDOW)];
+            for (int k = 0; k < windows.length; k++) {
+                long offset = k * WINDOW;
+                windows[k] = ch.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(WINDOW, bytes - offset))
+                        .order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+            }
+        }
+
+        void run(Mmu mmu) {
+            for (LongBuffer w : windows)
+                for (int i = 0, n = w.limit(); i < n; i++)
+                    mmu.access(w.get(i));
+        }
+
+        public void close() throws IOException {
+            ch.close();
+        }
+    }
+
+    // Converts the interactive input format (frames, number of pages, then the
+    // reference string) to a binary trace. Frames are not stored; they are given
+    // on the command line when the trace is run. Parses bytes directly, since
+    // Scanner is far slower than the simulation on large inputs.
+    static long convert(Path in, Path out) throws IOException {
+        try (InputStream r = new BufferedInputStream(Files.newInputStream(in), 1 << 16);
+             FileChannel ch = FileChannel.open(out, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING)) {
+            long header[] = new long[2];
+            for (int k = 0; k < 2; k++) {
+                header[k] = readInt(r);
+                if (header[k] == Long.MIN_VALUE) throw new IOException("Missing frames / page count header in " + in);
+            }
+            ByteBuffer buf = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+            long n = 0, v;
+            while (n < header[1] && (v = readInt(r)) != Long.MIN_VALUE) {
+                if (!buf.hasRemaining()) {
+                    buf.flip();
+                    while (buf.hasRemaining()) ch.write(buf);
+                    buf.clear();
+                }
+                buf.putInt((int) v);
+                n++;
+            }
+            buf.flip();
+            while (buf.hasRemaining()) ch.write(buf);
+            return n;
+        }
+    }
+
+    // Next whitespace-separated integer, or Long.MIN_VALUE at end of input
+    static long readInt(InputStream r) throws IOException {
+        int c = r.read();
+        while (c != -1 && c != '-' && (c < '0' || c > '9')) c = r.read();
+        if (c == -1) return Long.MIN_VALUE;
+        boolean negative = c == '-';
+        if (negative) c = r.read();
+        long v = 0;
+        for (; c >= '0' && c <= '9'; c = r.read()) v = v * 10 + (c - '0');
+        return negative ? -v : v;
+    }
+
+    // nextUse[i] = index of the next reference to pages[i], or Integer.MAX_VALUE
+    static int[] nextUse(int pages[]) {
+        int nextUse[] = new int[pages.length];
+        IntIntMap seen = new IntIntMap(1024);
+        for (int i = pages.length - 1; i >= 0; i--) {
+            int next = seen.get(pages[i]);
+            nextUse[i] = next == -1 ? Integer.MAX_VALUE : next;
+            seen.put(pages[i], i);
+        }
+        return nextUse;
+    }
+
+    // Max-heap of frame slots ordered by (key[slot], tie[slot]); pos[slot] is
+    // the slot's place in the heap, so a changed key is fixed up in O(log frames).
+    static class SlotHeap {
+        int heap[], pos[];
+        long key[], tie[];
+        int size;
+
+        SlotHeap(int capacity) {
+            heap = new int[Math.max(capacity, 1)];
+            pos = new int[heap.length];
+            key = new long[heap.length];
+            tie = new long[heap.length];
+        }
+
+        boolean above(int a, int b) {
+            return key[a] != key[b] ? key[a] > key[b] : tie[a] > tie[b];
+        }
+
+        int top() {
+            return heap[0];
+        }
+
+        void add(int slot) {
+            heap[size] = slot;
+            pos[slot] = size;
+            siftUp(size++);
+        }
+
+        void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) >> 1;
+                if (!above(heap[i], heap[parent])) break;
+                swap(i, parent);
+                i = parent;
             }
-            System.out.println("Page: " + p + " -> " + memory);
         }
-        System.out.println("Total Page Faults (Optimal): " + faults);
+
+        void siftDown(int i) {
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) break;
+                if (child + 1 < size && above(heap[child + 1], heap[child])) child++;
+                if (!above(heap[child], heap[i])) break;
+                swap(i, child);
+                i = child;
+            }
+        }
+
+        void swap(int i, int j) {
+            int a = heap[i], b = heap[j];
+            heap[i] = b;
+            heap[j] = a;
+            pos[b] = i;
+            pos[a] = j;
+        }
+    }
+
+    // ---------- Primitive Collections ----------
+    // Open-addressing int -> int map (linear probing, backward-shift delete).
+    // get() returns -1 for a missing key, so stored values must be non-negative.
+    static class IntIntMap {
+        int keys[], vals[];
+        boolean used[];
+        int size, mask;
+
+        IntIntMap(int expected) {
+            int cap = Integer.highestOneBit(Math.max(expected, 2) * 2 - 1) << 1;
+            keys = new int[cap];
+            vals = new int[cap];
+            used = new boolean[cap];
+            mask = cap - 1;
+        }
+
+        int slot(int key) {
+            int h = key * 0x9E3779B9;
+            return (h ^ (h >>> 16)) & mask;
+        }
+
+        int get(int key) {
+            for (int i = slot(key); used[i]; i = (i + 1) & mask)
+                if (keys[i] == key) return vals[i];
+            return -1;
+        }
+
+        boolean containsKey(int key) {
+            for (int i = slot(key); used[i]; i = (i + 1) & mask)
+                if (keys[i] == key) return true;
+            return false;
+        }
+
+        void put(int key, int val) {
+            int i = slot(key);
+            for (; used[i]; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    vals[i] = val;
+                    return;
+                }
+            }
+            used[i] = true;
+            keys[i] = key;
+            vals[i] = val;
+            if (++size * 2 > keys.length) rehash();
+        }
+
+        void remove(int key) {
+            int i = slot(key);
+            while (true) {
+                if (!used[i]) return;
+                if (keys[i] == key) break;
+                i = (i + 1) & mask;
+            }
+            size--;
+            // Shift later entries of the same probe run back into the hole
+            int hole = i;
+            for (int j = (hole + 1) & mask; used[j]; j = (j + 1) & mask) {
+                int home = slot(keys[j]);
+                if (((j - home) & mask) >= ((j - hole) & mask)) {
+                    keys[hole] = keys[j];
+                    vals[hole] = vals[j];
+                    hole = j;
+                }
+            }
+            used[hole] = false;
+        }
+
+        void clear() {
+            Arrays.fill(used, false);
+            size = 0;
+        }
+
+        void rehash() {
+            int oldKeys[] = keys, oldVals[] = vals;
+            boolean oldUsed[] = used;
+            keys = new int[oldKeys.length * 2];
+            vals = new int[oldKeys.length * 2];
+            used = new boolean[oldKeys.length * 2];
+            mask = keys.length - 1;
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++)
+                if (oldUsed[i]) put(oldKeys[i], oldVals[i]);
+        }
+    }
+
+    // Open-addressing int set (linear probing, backward-shift delete) with a
+    // fixed capacity of at least four slots per element. Empty slots hold EMPTY;
+    // the page id EMPTY itself is tracked by a flag, so any int can be stored.
+    static class IntSet {
+        static final int EMPTY = Integer.MIN_VALUE;
+        final int keys[];
+        final int mask;
+        boolean hasEmpty;
+        int size;
+
+        IntSet(int capacity) {
+            keys = new int[Integer.highestOneBit(Math.max(capacity, 1) * 4 - 1) << 1];
+            Arrays.fill(keys, EMPTY);
+            mask = keys.length - 1;
+        }
+
+        int slot(int key) {
+            return (key ^ (key >>> 16)) & mask;     // page ids are mostly consecutive: keep them apart
+        }
+
+        boolean contains(int key) {
+            if (key == EMPTY) return hasEmpty;
+            for (int i = slot(key); ; i = (i + 1) & mask) {
+                int k = keys[i];
+                if (k == key) return true;
+                if (k == EMPTY) return false;
+            }
+        }
+
+        // Caller guarantees key is absent and size stays within capacity
+        void add(int key) {
+            size++;
+            if (key == EMPTY) {
+                hasEmpty = true;
+                return;
+            }
+            int i = slot(key);
+            while (keys[i] != EMPTY) i = (i + 1) & mask;
+            keys[i] = key;
+        }
+
+        // Caller guarantees key is present
+        void remove(int key) {
+            size--;
+            if (key == EMPTY) {
+                hasEmpty = false;
+                return;
+            }
+            int hole = slot(key);
+            while (keys[hole] != key) hole = (hole + 1) & mask;
+            for (int j = (hole + 1) & mask; keys[j] != EMPTY; j = (j + 1) & mask) {
+                if (((j - slot(keys[j])) & mask) >= ((j - hole) & mask)) {
+                    keys[hole] = keys[j];
+                    hole = j;
+                }
+            }
+            keys[hole] = EMPTY;
+        }
+    }
+
+    // Insertion-ordered int set with O(1) add, remove and move-to-end: an
+    // intrusive doubly linked list over parallel int arrays, indexed by page.
+    static class IntLinkedSet {
+        int value[], prev[], next[];
+        int head = -1, tail = -1, freeHead = -1, used, size;
+        IntIntMap index;
+
+        IntLinkedSet(int capacity) {
+            capacity = Math.max(capacity, 1);
+            value = new int[capacity];
+            prev = new int[capacity];
+            next = new int[capacity];
+            index = new IntIntMap(capacity);
+        }
+
+        boolean contains(int v) {
+            return index.containsKey(v);
+        }
+
+        void addLast(int v) {
+            int node = newNode(v);
+            prev[node] = tail;
+            next[node] = -1;
+            if (tail != -1) next[tail] = node;
+            else head = node;
+            tail = node;
+        }
+
+        void moveToLast(int v) {
+            int node = index.get(v);
+            if (node == tail) return;
+            unlink(node);
+            prev[node] = tail;
+            next[node] = -1;
+            next[tail] = node;
+            tail = node;
+        }
+
+        void remove(int v) {
+            int node = index.get(v);
+            if (node == -1) return;
+            unlink(node);
+            release(node);
+        }
+
+        int removeFirst() {
+            int node = head, v = value[node];
+            unlink(node);
+            release(node);
+            return v;
+        }
+
+        int newNode(int v) {
+            int node;
+            if (freeHead != -1) {
+                node = freeHead;
+                freeHead = next[node];
+            } else {
+                if (used == value.length) {
+                    int cap = value.length * 2;
+                    value = Arrays.copyOf(value, cap);
+                    prev = Arrays.copyOf(prev, cap);
+                    next = Arrays.copyOf(next, cap);
+                }
+                node = used++;
+            }
+            value[node] = v;
+            index.put(v, node);
+            size++;
+            return node;
+        }
+
+        void unlink(int node) {
+            if (prev[node] != -1) next[prev[node]] = next[node];
+            else head = next[node];
+            if (next[node] != -1) prev[next[node]] = prev[node];
+            else tail = prev[node];
+        }
+
+        void release(int node) {
+            index.remove(value[node]);
+            next[node] = freeHead;
+            freeHead = node;
+            size--;
+        }
+
+        // Contents from oldest to newest, in the same format as List.toString()
+        public String toString() {
+            StringBuilder sb = new StringBuilder("[");
+            for (int node = head; node != -1; node = next[node]) {
+                if (node != head) sb.append(", ");
+                sb.append(value[node]);
+            }
+            return sb.append(']').toString();
+        }
     }
 }
 
@@ -197,6 +1874,17 @@ Display frames and total page faults.
 
 Stop.
 
+⚡ 2b. LRU in O(1)
+Algorithm
+
+Keep resident pages in a doubly linked list ordered from least to most recently used, plus a hash map from page to list node.
+
+    - Hit: look the page up in the map, unlink its node and relink it at the tail.
+
+    - Fault: if memory is full, unlink the head node (least recently used) and remove it from the map; then add the new page at the tail.
+
+Every step is O(1), so the fault count is the same as LRU above at a fraction of the cost.
+
 
 💡 3. Optimal Page Replacement
 Algorithm
@@ -223,5 +1911,102 @@ Display memory contents and total page faults.
 
 Stop.
 
+⚡ 3b. Optimal with a Next-use Index
+Algorithm
+
+Scan the reference string once from the end, recording for each position where the same page is referenced next.
+
+Keep resident pages in a max-heap keyed by their next use, and a hash map from page to frame.
+
+    - Hit: update the page's next use (it only moves later) and sift it up.
+
+    - Fault: if memory is full, replace the heap top (used farthest in the future) and sift the new page down.
+
+Each reference costs O(log frames) instead of a scan of the remaining string.
+
+🕰️ 4. CLOCK (Second Chance)
+Algorithm
+
+Arrange frames in a circle, each with a reference bit, and keep a hand pointing at one frame.
+
+    - Hit: set the page's reference bit.
+
+    - Fault: while the frame under the hand has its bit set, clear it and advance the hand; replace the first frame with a clear bit.
+
+📊 5. LFU with Aging
+Algorithm
+
+Count references to each resident page and replace the page with the smallest count (least recently used among equals).
+
+Every aging period, halve all counts so pages that were popular long ago can be replaced.
+
+🔀 6. ARC (Adaptive Replacement Cache)
+Algorithm
+
+Keep two LRU lists of resident pages: T1 (seen once recently) and T2 (seen at least twice), plus ghost lists B1 and B2 of pages recently evicted from each.
+
+    - Hit in T1 or T2: move the page to the most recent end of T2.
+
+    - Miss found in B1: grow the target size of T1; found in B2: shrink it. Then replace from T1 or T2 according to the target and load the page into T2.
+
+    - Completely new page: load it into T1.
+
+ARC adapts between recency and frequency without any tuning parameter.
+
+2️⃣ 7. 2Q
+Algorithm
+
+New pages enter a small FIFO queue A1in. Pages evicted from A1in are remembered (without frames) in the ghost queue A1out.
+
+    - A page referenced again while in A1out is loaded into the main LRU list Am.
+
+    - Hits in Am move the page to the most recent end; hits in A1in change nothing.
+
+One-time references pass through A1in without disturbing the pages in Am.
+
+📈 8. Miss-ratio Curve (Stack Distance)
+Idea
+
+LRU is a stack algorithm: the pages held with c frames are always a subset of those held with c + 1 frames.
+
+The stack distance of a reference is the number of distinct pages used since the last reference to the same page (counting itself). With c frames the reference hits exactly when its distance is ≤ c.
+
+    - One pass records a histogram of distances; faults(c) = first-time references + references with distance > c.
+
+    - Distances are counted with a Fenwick tree over last-access times, so each reference costs O(log n).
+
+    - SHARDS sampling tracks only pages whose hash falls under a threshold (rate R) and scales the results by 1 / R, giving an approximate curve for very long traces in little memory.
+
+⚠️ 9. Belady's Anomaly
+Idea
+
+For some policies, giving a process more frames can increase the number of page faults.
+
+    - Example: 1 2 3 4 1 2 5 1 2 3 4 5 gives 9 faults with 3 frames but 10 faults with 4 frames under FIFO.
+
+    - Stack algorithms (LRU, Optimal) never show it, because the pages held with c frames are always held with c + 1 frames.
+
+🔁 10. Thrashing, Working Set and PFF
+Idea
+
+With many processes sharing memory, each may get fewer frames than its current locality needs. It then faults constantly, the paging disk saturates and CPU utilization collapses: thrashing.
+
+    - Global replacement: a fault may take a frame from any process. Local replacement: each process replaces only its own frames.
+
+    - Working set WS(t, Δ): the pages referenced in the last Δ references. A process is only run if its working set fits; otherwise a process is suspended.
+
+    - Page-Fault Frequency (PFF): if faults come faster than a threshold, give the process more frames; if slower, take back the pages it has not used since its last fault.
+
+🗂️ 11. TLB and Multi-level Page Tables
+Idea
+
+A TLB caches recent virtual page -> frame translations. On a TLB miss the hardware walks the page table: with 4 levels, that is 4 extra memory accesses before the data itself.
+
+    - Set-associative TLB: the page number selects a set; the entry is searched among that set's ways (LRU within the set).
+
+    - TLB reach = entries × page size. Huge pages (2 MB) raise the reach and shorten the walk by one level.
+
+    - EMAT = t(TLB) + t(mem) + (TLB miss rate × levels × t(mem)) + (fault rate × fault service time)
+
 
  */
\ No newline at end of file